@@ -0,0 +1,402 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import com.gitlab.mvysny.jdbiorm.condition.AggregateFunction;
+import com.gitlab.mvysny.jdbiorm.condition.Condition;
+import com.gitlab.mvysny.jdbiorm.condition.Expression;
+import com.gitlab.mvysny.jdbiorm.condition.ParametrizedSql;
+import com.gitlab.mvysny.jdbiorm.jdbi.FieldMapper;
+import org.jdbi.v3.core.mapper.ColumnMapper;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.Query;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static com.gitlab.mvysny.jdbiorm.JdbiOrm.jdbi;
+
+/**
+ * Builds a <code>SELECT ... GROUP BY ...</code> query, created by {@link DaoOfAny#aggregate()}. All of the aggregation
+ * is done by the database; only the resulting groups are fetched. For example, to count the people and their average age
+ * per marital status, for people born after 1990, listing only the groups of 10 or more people:
+ * <pre>
+ * Person.dao.aggregate()
+ *     .groupBy(Person.MARITAL_STATUS)
+ *     .count()
+ *     .avg(Person.AGE)
+ *     .where(Person.DATE_OF_BIRTH.gt(LocalDate.of(1990, 1, 1)))
+ *     .having(AggregateFunction.countAll().ge(10L))
+ *     .list(MaritalStatusStats.class);
+ * </pre>
+ * The select list consists of the {@link #groupBy(Property[]) grouping properties}, followed by the aggregates in the order
+ * in which they were added. The grouping properties are not aliased, and are therefore mapped to the DTO fields the same way as
+ * by {@link DaoOfAny#findAllProjectedBy(Condition, List, Class)}. The aggregates are aliased, e.g. <code>count</code> and
+ * <code>avgAge</code> in the example above.
+ * <p></p>
+ * The builder is not thread-safe.
+ * @param <T> the type of the rows of the DAO.
+ */
+public final class AggregateQuery<T> {
+    @NotNull
+    private final DaoOfAny<T> dao;
+    @NotNull
+    private final List<Property<?>> groupBy = new ArrayList<>();
+    /**
+     * The aggregates to select.
+     */
+    @NotNull
+    private final List<Expression<?>> aggregates = new ArrayList<>();
+    /**
+     * The aliases of {@link #aggregates}.
+     */
+    @NotNull
+    private final List<String> aliases = new ArrayList<>();
+    @NotNull
+    private Condition where = Condition.NO_CONDITION;
+    @NotNull
+    private Condition having = Condition.NO_CONDITION;
+    @NotNull
+    private final List<Expression<?>> orderBy = new ArrayList<>();
+    @NotNull
+    private final List<OrderBy.Order> orderByOrder = new ArrayList<>();
+
+    AggregateQuery(@NotNull DaoOfAny<T> dao) {
+        this.dao = Objects.requireNonNull(dao);
+    }
+
+    /**
+     * Groups the rows by given properties, and selects them.
+     * @param properties the properties, not null.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> groupBy(@NotNull Property<?>... properties) {
+        groupBy.addAll(Arrays.asList(properties));
+        return this;
+    }
+
+    /**
+     * Selects given aggregate.
+     * @param aggregate the aggregate expression, such as <code>Person.AGE.sum()</code>, not null.
+     * @param alias the column alias, e.g. <code>totalAge</code>. Not null, must be a valid SQL identifier.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> select(@NotNull Expression<?> aggregate, @NotNull String alias) {
+        aggregates.add(Objects.requireNonNull(aggregate, "aggregate"));
+        aliases.add(Objects.requireNonNull(alias, "alias"));
+        return this;
+    }
+
+    /**
+     * Selects the number of rows in the group, as <code>count</code>.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> count() {
+        return select(AggregateFunction.countAll(), "count");
+    }
+
+    /**
+     * Selects the sum of given property, as <code>sum</code> followed by the capitalized property name, e.g. <code>sumAge</code>.
+     * @param property the property, not null.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> sum(@NotNull Property<?> property) {
+        return select(property.sum(), alias("sum", property));
+    }
+
+    /**
+     * Selects the average of given property, as <code>avg</code> followed by the capitalized property name, e.g. <code>avgAge</code>.
+     * See {@link Expression#avg()} for the type of the result.
+     * @param property the property, not null.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> avg(@NotNull Property<?> property) {
+        return select(property.avg(), alias("avg", property));
+    }
+
+    /**
+     * Selects the minimum of given property, as <code>min</code> followed by the capitalized property name, e.g. <code>minAge</code>.
+     * @param property the property, not null.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> min(@NotNull Property<?> property) {
+        return select(property.min(), alias("min", property));
+    }
+
+    /**
+     * Selects the maximum of given property, as <code>max</code> followed by the capitalized property name, e.g. <code>maxAge</code>.
+     * @param property the property, not null.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> max(@NotNull Property<?> property) {
+        return select(property.max(), alias("max", property));
+    }
+
+    @NotNull
+    private static String alias(@NotNull String function, @NotNull Property<?> property) {
+        final String name = property.getName().getName().replace('.', '_');
+        return function + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Only aggregates the rows matching given condition (the <code>WHERE</code> clause). Replaces the previous condition.
+     * @param where the condition, null to aggregate all rows.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> where(@Nullable Condition where) {
+        this.where = where == null ? Condition.NO_CONDITION : where;
+        return this;
+    }
+
+    /**
+     * Only returns the groups matching given condition (the <code>HAVING</code> clause), which typically references
+     * aggregate functions, e.g. <code>Person.AGE.avg().gt(30)</code>. Replaces the previous condition.
+     * @param having the condition, null to return all groups.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> having(@Nullable Condition having) {
+        this.having = having == null ? Condition.NO_CONDITION : having;
+        return this;
+    }
+
+    /**
+     * Orders the groups by given grouping properties.
+     * @param orderBy the ordering, not null.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> orderBy(@NotNull OrderBy... orderBy) {
+        for (OrderBy o : orderBy) {
+            orderBy(o.getProperty(), o.getOrder());
+        }
+        return this;
+    }
+
+    /**
+     * Orders the groups by given expression, typically an aggregate function, e.g. <code>Person.AGE.sum()</code>.
+     * @param expression the expression, not null.
+     * @param order the order, not null.
+     * @return this
+     */
+    @NotNull
+    public AggregateQuery<T> orderBy(@NotNull Expression<?> expression, @NotNull OrderBy.Order order) {
+        this.orderBy.add(Objects.requireNonNull(expression, "expression"));
+        this.orderByOrder.add(Objects.requireNonNull(order, "order"));
+        return this;
+    }
+
+    /**
+     * Runs the query, mapping the groups to given class via {@link FieldMapper}.
+     * @param target the DTO class with fields named after the grouping properties and the aggregate aliases, not null.
+     * @return the groups, not null.
+     * @param <R> the type of the DTO.
+     */
+    @NotNull
+    public <R> List<R> list(@NotNull Class<R> target) {
+        return list(FieldMapper.of(Objects.requireNonNull(target, "target")));
+    }
+
+    /**
+     * Runs the query, returning the groups as {@link Row rows}.
+     * @return the groups, not null.
+     */
+    @NotNull
+    public List<Row> list() {
+        final List<Expression<?>> columns = getColumns();
+        return list(new RowMapper<Row>() {
+            @Override
+            public Row map(ResultSet rs, StatementContext ctx) throws SQLException {
+                return specialize(rs, ctx).map(rs, ctx);
+            }
+
+            @Override
+            public RowMapper<Row> specialize(ResultSet rs, StatementContext ctx) {
+                final List<ColumnMapper<?>> mappers = columns.stream()
+                        .map(it -> {
+                            final Class<?> type = getValueType(it);
+                            return type == null ? null : ctx.findColumnMapperFor(type).orElse(null);
+                        })
+                        .collect(Collectors.toList());
+                return (r, c) -> {
+                    final Object[] values = new Object[mappers.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        final ColumnMapper<?> mapper = mappers.get(i);
+                        values[i] = mapper == null ? r.getObject(i + 1) : mapper.map(r, i + 1, c);
+                    }
+                    return new Row(columns, values);
+                };
+            }
+        });
+    }
+
+    /**
+     * @return the grouping properties followed by the aggregates, in the order of the select list.
+     */
+    @NotNull
+    private List<Expression<?>> getColumns() {
+        final List<Expression<?>> columns = new ArrayList<>(groupBy);
+        columns.addAll(aggregates);
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Determines the Java type of the column produced by given expression.
+     * @return the (boxed) type, or null if the value is to be taken from the JDBC driver as-is.
+     */
+    @Nullable
+    private static Class<?> getValueType(@NotNull Expression<?> expression) {
+        if (expression instanceof Property) {
+            return MethodType.methodType(((Property<?>) expression).getValueType()).wrap().returnType();
+        }
+        if (expression instanceof AggregateFunction) {
+            final AggregateFunction<?> function = (AggregateFunction<?>) expression;
+            switch (function.getFunction()) {
+                case COUNT:
+                    return Long.class;
+                case MIN:
+                case MAX:
+                    return function.getArg() == null ? null : getValueType(function.getArg());
+                default:
+                    // the type of SUM and AVG depends on the database.
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private <R> List<R> list(@NotNull RowMapper<R> rowMapper) {
+        if (groupBy.isEmpty() && aggregates.isEmpty()) {
+            throw new IllegalStateException("Invalid state: " + this + ": nothing is selected, call groupBy() or add an aggregate");
+        }
+        final List<ParametrizedSql> parameters = new ArrayList<>();
+        final StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < groupBy.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(append(parameters, groupBy.get(i).toSql()));
+        }
+        for (int i = 0; i < aggregates.size(); i++) {
+            if (i > 0 || !groupBy.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append(append(parameters, aggregates.get(i).toSql())).append(" AS ").append(aliases.get(i));
+        }
+        sql.append(' ').append(dao.getFromClause());
+        if (where != Condition.NO_CONDITION) {
+            sql.append(" WHERE ").append(append(parameters, where.toSql()));
+        }
+        if (!groupBy.isEmpty()) {
+            sql.append(" GROUP BY ").append(groupBy.stream().map(it -> append(parameters, it.toSql())).collect(Collectors.joining(", ")));
+        }
+        if (having != Condition.NO_CONDITION) {
+            sql.append(" HAVING ").append(append(parameters, having.toSql()));
+        }
+        for (int i = 0; i < orderBy.size(); i++) {
+            sql.append(i == 0 ? " ORDER BY " : ", ").append(append(parameters, orderBy.get(i).toSql())).append(' ').append(orderByOrder.get(i));
+        }
+        return jdbi().withHandle(handle -> {
+            final Query query = handle.createQuery(sql.toString());
+            parameters.forEach(it -> it.bindTo(query));
+            return query.map(rowMapper).list();
+        });
+    }
+
+    @NotNull
+    private static String append(@NotNull List<ParametrizedSql> parameters, @NotNull ParametrizedSql sql) {
+        parameters.add(sql);
+        return sql.getSql92();
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateQuery{" + dao.entityClass.getSimpleName() + ", groupBy=" + groupBy + ", aggregates=" + aggregates +
+                ", where=" + where + ", having=" + having + "}";
+    }
+
+    /**
+     * A group returned by {@link #list()}: the values of the grouping properties, followed by the values of the aggregates.
+     */
+    public static final class Row implements Serializable {
+        @NotNull
+        private final List<Expression<?>> columns;
+        @NotNull
+        private final Object[] values;
+
+        Row(@NotNull List<Expression<?>> columns, @NotNull Object[] values) {
+            this.columns = columns;
+            this.values = values;
+        }
+
+        /**
+         * Returns the value of given grouping property or aggregate, e.g. <code>row.get(Person.MARITAL_STATUS)</code>
+         * or <code>row.get(AggregateFunction.countAll())</code>.
+         * @param column the grouping property or the aggregate, not null.
+         * @return the value, may be null.
+         * @param <V> the type of the value.
+         * @throws IllegalArgumentException if the expression is not selected.
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public <V> V get(@NotNull Expression<V> column) {
+            final int index = columns.indexOf(Objects.requireNonNull(column, "column"));
+            if (index < 0) {
+                throw new IllegalArgumentException("Parameter column: invalid value " + column + ": not selected, expected one of " + columns);
+            }
+            return (V) values[index];
+        }
+
+        /**
+         * @param index the 0-based index of the column in the select list.
+         * @return the value, may be null.
+         */
+        @Nullable
+        public Object get(int index) {
+            return values[index];
+        }
+
+        /**
+         * @return the number of columns.
+         */
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Row)) return false;
+            Row row = (Row) o;
+            return columns.equals(row.columns) && Arrays.equals(values, row.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * columns.hashCode() + Arrays.hashCode(values);
+        }
+
+        @Override
+        public String toString() {
+            return "Row" + Arrays.toString(values);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The outcome of {@link Dao#bulkLoad(java.util.Iterator)}: how many rows were loaded, how long it took and
+ * which mechanism was used.
+ */
+public final class BulkLoadResult implements Serializable {
+    /**
+     * The mechanism used to load the rows into the database.
+     */
+    public enum Method {
+        /**
+         * PostgreSQL <code>COPY ... FROM STDIN</code>.
+         */
+        COPY,
+        /**
+         * JDBC batches of multi-row <code>INSERT INTO ... VALUES (...), (...)</code> statements.
+         */
+        MULTI_ROW_INSERT
+    }
+
+    private final long rowCount;
+    @NotNull
+    private final Duration duration;
+    @NotNull
+    private final Method method;
+
+    public BulkLoadResult(long rowCount, @NotNull Duration duration, @NotNull Method method) {
+        this.rowCount = rowCount;
+        this.duration = Objects.requireNonNull(duration);
+        this.method = Objects.requireNonNull(method);
+    }
+
+    /**
+     * @return the number of rows loaded into the database.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the time it took to load the rows, including the time spent by the iterator producing the entities. Not null.
+     */
+    @NotNull
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the mechanism used to load the rows, not null.
+     */
+    @NotNull
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * The throughput of the load.
+     * @return the number of rows loaded per second.
+     */
+    public double getRowsPerSecond() {
+        final long nanos = duration.toNanos();
+        return nanos == 0 ? 0 : rowCount * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadResult{" + rowCount + " rows in " + duration.toMillis() + "ms via " + method
+                + " (" + Math.round(getRowsPerSecond()) + " rows/s)}";
+    }
+}
@@ -0,0 +1,315 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import com.gitlab.mvysny.jdbiorm.quirks.DatabaseVariant;
+import com.gitlab.mvysny.jdbiorm.quirks.Quirks;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.core.statement.SqlStatement;
+import org.jdbi.v3.core.statement.Update;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.gitlab.mvysny.jdbiorm.JdbiOrm.jdbi;
+
+/**
+ * Implements {@link Dao#bulkLoad(Iterator)}. The entities are pulled from the iterator lazily and written straight
+ * to the database, so that only a bounded number of entities is held in memory at any time.
+ * <p></p>
+ * On PostgreSQL the rows are streamed via <code>COPY ... FROM STDIN</code>, provided that the PostgreSQL JDBC driver
+ * is available and all columns are of types with an unambiguous text representation (see {@link #COPY_TYPES}).
+ * Otherwise the rows are inserted via JDBC batches of multi-row <code>INSERT</code> statements.
+ */
+final class BulkLoader {
+    private static final Logger log = LoggerFactory.getLogger(BulkLoader.class);
+
+    /**
+     * MSSQL allows at most 1000 rows in the VALUES clause.
+     */
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+
+    /**
+     * Value types which are passed to <code>COPY</code> as text; PostgreSQL parses their {@link Object#toString()}
+     * the same way as when they're bound as JDBC parameters. Also enums, primitives and <code>byte[]</code> are supported.
+     */
+    private static final Set<Class<?>> COPY_TYPES = Set.of(String.class, Character.class, Boolean.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigDecimal.class,
+            BigInteger.class, UUID.class, LocalDate.class, LocalDateTime.class, LocalTime.class);
+
+    @NotNull
+    private final EntityMeta<?> meta;
+    @NotNull
+    private final Consumer<Object> validator;
+
+    /**
+     * @param meta the entity meta, not null.
+     * @param validator called for every entity before it's written to the database.
+     */
+    BulkLoader(@NotNull EntityMeta<?> meta, @NotNull Consumer<Object> validator) {
+        this.meta = Objects.requireNonNull(meta);
+        this.validator = Objects.requireNonNull(validator);
+    }
+
+    /**
+     * Loads all entities into the database, in one transaction.
+     * @param entities the entities, not null. Either all of them must have the ID set, or none of them.
+     * @return the result, not null.
+     */
+    @NotNull
+    BulkLoadResult load(@NotNull Iterator<?> entities) {
+        Objects.requireNonNull(entities, "entities");
+        final long start = System.nanoTime();
+        if (!entities.hasNext()) {
+            return new BulkLoadResult(0, Duration.ZERO, BulkLoadResult.Method.MULTI_ROW_INSERT);
+        }
+        final Rows rows = new Rows(entities);
+        final EntityMeta.StatementPlan plan = meta.getInsertPlan(rows.includeId);
+        final BulkLoadResult.Method method = jdbi().inTransaction(handle -> {
+            RowCountCache.invalidate(handle, meta.getDatabaseTableName());
+            if (DatabaseVariant.from(handle) == DatabaseVariant.PostgreSQL && isCopySupported(plan.getParameters())) {
+                final Object copyManager = getCopyManager(handle.getConnection());
+                if (copyManager != null) {
+                    copy(copyManager, plan.getParameters(), rows);
+                    return BulkLoadResult.Method.COPY;
+                }
+            }
+            insertMultiRow(handle, plan, rows);
+            return BulkLoadResult.Method.MULTI_ROW_INSERT;
+        });
+        final BulkLoadResult result = new BulkLoadResult(rows.count, Duration.ofNanos(System.nanoTime() - start), method);
+        log.info("Bulk-loaded {}: {}", meta.getDatabaseTableName(), result);
+        return result;
+    }
+
+    /**
+     * Pulls the entities from the iterator, checks and validates them.
+     */
+    private final class Rows implements Iterator<Object> {
+        @Nullable
+        private Object first;
+        @NotNull
+        private final Iterator<?> rest;
+        /**
+         * Whether the ID column is inserted. Determined by the first entity: if its ID is null,
+         * the IDs are expected to be generated by the database.
+         */
+        private final boolean includeId;
+        private long count = 0;
+
+        Rows(@NotNull Iterator<?> entities) {
+            first = Objects.requireNonNull(entities.next(), "entities must not contain nulls");
+            rest = entities;
+            includeId = meta.getId(first) != null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return first != null || rest.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            final Object entity;
+            if (first != null) {
+                entity = first;
+                first = null;
+            } else {
+                entity = Objects.requireNonNull(rest.next(), "entities must not contain nulls");
+            }
+            if ((meta.getId(entity) != null) != includeId) {
+                throw new IllegalArgumentException("Parameter entities: invalid value: either all entities must have the ID set, or none; "
+                        + entity + " differs from the first entity");
+            }
+            meta.initVersion(entity);
+            validator.accept(entity);
+            count++;
+            return entity;
+        }
+    }
+
+    private static boolean isCopySupported(@NotNull List<PropertyMeta> columns) {
+        return columns.stream().map(PropertyMeta::getValueType)
+                .allMatch(it -> it.isPrimitive() || it.isEnum() || it == byte[].class || COPY_TYPES.contains(it));
+    }
+
+    /**
+     * Returns the PostgreSQL <code>CopyManager</code> for given connection. Uses reflection since the PostgreSQL JDBC driver is
+     * not a compile-time dependency.
+     * @return the CopyManager, or null if the PostgreSQL JDBC driver is not available.
+     */
+    @Nullable
+    private static Object getCopyManager(@NotNull Connection connection) {
+        final Class<?> pgConnection;
+        try {
+            pgConnection = Class.forName("org.postgresql.PGConnection");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        try {
+            if (!connection.isWrapperFor(pgConnection)) {
+                return null;
+            }
+            return pgConnection.getMethod("getCopyAPI").invoke(connection.unwrap(pgConnection));
+        } catch (ReflectiveOperationException | SQLException e) {
+            log.warn("Failed to obtain PostgreSQL CopyManager, falling back to multi-row INSERTs", e);
+            return null;
+        }
+    }
+
+    private void copy(@NotNull Object copyManager, @NotNull List<PropertyMeta> columns, @NotNull Iterator<Object> rows) {
+        final String sql = "COPY " + meta.getDatabaseTableName() + " ("
+                + columns.stream().map(it -> it.getDbName().getUnqualifiedName()).collect(Collectors.joining(", "))
+                + ") FROM STDIN WITH (FORMAT csv)";
+        try {
+            copyManager.getClass().getMethod("copyIn", String.class, Reader.class)
+                    .invoke(copyManager, sql, new CsvReader(rows, columns));
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Produces the CSV lines lazily, one entity at a time.
+     */
+    private static final class CsvReader extends Reader {
+        @NotNull
+        private final Iterator<Object> rows;
+        @NotNull
+        private final List<PropertyMeta> columns;
+        @NotNull
+        private final StringBuilder line = new StringBuilder();
+        private int position = 0;
+
+        CsvReader(@NotNull Iterator<Object> rows, @NotNull List<PropertyMeta> columns) {
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= line.length()) {
+                if (!rows.hasNext()) {
+                    return -1;
+                }
+                line.setLength(0);
+                position = 0;
+                final Object entity = rows.next();
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    appendCsvValue(columns.get(i).get(entity));
+                }
+                line.append('\n');
+            }
+            final int count = Math.min(len, line.length() - position);
+            line.getChars(position, position + count, cbuf, off);
+            position += count;
+            return count;
+        }
+
+        private void appendCsvValue(@Nullable Object value) {
+            if (value == null) {
+                // an unquoted empty value is NULL in the PostgreSQL CSV format; a quoted one is an empty string.
+                return;
+            }
+            final String text;
+            if (value instanceof byte[]) {
+                final StringBuilder hex = new StringBuilder("\\x");
+                for (byte b : (byte[]) value) {
+                    hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+                text = hex.toString();
+            } else if (value instanceof Enum) {
+                text = ((Enum<?>) value).name();
+            } else if (value instanceof BigDecimal) {
+                text = ((BigDecimal) value).toPlainString();
+            } else {
+                text = value.toString();
+            }
+            line.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static void insertMultiRow(@NotNull Handle handle, @NotNull EntityMeta.StatementPlan plan, @NotNull Iterator<Object> rows) {
+        final int columns = plan.getParameters().size();
+        final int rowsPerStatement = Math.max(1, Math.min(MAX_ROWS_PER_INSERT, Quirks.from(handle).maxStatementParameters() / columns));
+        final int statementsPerBatch = Math.max(1, JdbiOrm.getBatchSize() / rowsPerStatement);
+        final String sql = getMultiRowInsertSql(plan, rowsPerStatement);
+        final List<Object> chunk = new ArrayList<>(rowsPerStatement);
+        PreparedBatch batch = handle.prepareBatch(sql);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == rowsPerStatement) {
+                bind(batch, plan, chunk);
+                batch.add();
+                chunk.clear();
+                if (batch.size() >= statementsPerBatch) {
+                    batch.execute();
+                    batch.close();
+                    batch = handle.prepareBatch(sql);
+                }
+            }
+        }
+        if (batch.size() > 0) {
+            batch.execute();
+        }
+        batch.close();
+        if (!chunk.isEmpty()) {
+            try (Update update = handle.createUpdate(getMultiRowInsertSql(plan, chunk.size()))) {
+                bind(update, plan, chunk);
+                update.execute();
+            }
+        }
+    }
+
+    /**
+     * Turns the single-row INSERT statement into a multi-row INSERT statement.
+     */
+    @NotNull
+    private static String getMultiRowInsertSql(@NotNull EntityMeta.StatementPlan plan, int rows) {
+        final String values = plan.getParameters().stream().map(it -> "?").collect(Collectors.joining(", ", "(", ")"));
+        final StringBuilder sb = new StringBuilder(plan.getSql());
+        for (int i = 1; i < rows; i++) {
+            sb.append(", ").append(values);
+        }
+        return sb.toString();
+    }
+
+    private static void bind(@NotNull SqlStatement<?> statement, @NotNull EntityMeta.StatementPlan plan, @NotNull List<Object> chunk) {
+        final List<PropertyMeta> parameters = plan.getParameters();
+        for (int row = 0; row < chunk.size(); row++) {
+            final Object entity = chunk.get(row);
+            for (int column = 0; column < parameters.size(); column++) {
+                statement.bind(row * parameters.size() + column, parameters.get(column).get(entity));
+            }
+        }
+    }
+}
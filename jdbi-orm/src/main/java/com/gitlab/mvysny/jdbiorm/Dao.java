@@ -1,14 +1,29 @@
 package com.gitlab.mvysny.jdbiorm;
 
+import com.gitlab.mvysny.jdbiorm.quirks.Quirks;
 import com.gitlab.mvysny.jdbiorm.spi.AbstractEntity;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.core.statement.Query;
 import org.jdbi.v3.core.statement.SqlStatement;
 import org.jdbi.v3.core.statement.Update;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.gitlab.mvysny.jdbiorm.JdbiOrm.jdbi;
@@ -53,10 +68,9 @@ public class Dao<T extends AbstractEntity<ID>, ID> extends DaoOfAny<T> {
     public T findById(@NotNull ID id) {
         Objects.requireNonNull(id, "id");
         return jdbi().withHandle(handle -> {
-            final Query query = handle.createQuery("select <FIELDS> from <TABLE> where <ID>")
-                    .define("FIELDS", meta.getPersistedFieldDbNames().stream().map(Property.DbName::getUnqualifiedName).collect(Collectors.joining(", ")))
-                    .define("TABLE", meta.getDatabaseTableName());
-            passIdValuesToQuery(query, id);
+            final EntityMeta.StatementPlan plan = meta.getSelectByIdPlan();
+            final Query query = handle.createQuery(plan.getSql());
+            plan.bindValues(query, getIdValues(id));
             return query.map(getRowMapper())
                     .findFirst().orElse(null);
         });
@@ -74,17 +88,119 @@ public class Dao<T extends AbstractEntity<ID>, ID> extends DaoOfAny<T> {
         final List<PropertyMeta> idProperties = meta.getIdProperty();
         query.define("ID", idProperties.stream().map(it -> it.getDbName().getUnqualifiedName() + " = :" + it.getDbName().getUnqualifiedName()).collect(Collectors.joining(" AND ")));
 
-        if (meta.hasCompositeKey()) {
-            // in order to be able to call PropertyMeta.get() we need to pass in the Entity instance, not the ID instance.
-            // so we'll use a little trick...
-            final T entity = meta.newEntityInstance();
-            meta.setId(entity, id);
-            for (PropertyMeta idProperty : idProperties) {
-                query.bind(idProperty.getDbName().getUnqualifiedName(), idProperty.get(entity));
-            }
-        } else {
+        final List<Object> idValues = getIdValues(id);
+        for (int i = 0; i < idProperties.size(); i++) {
+            query.bind(idProperties.get(i).getDbName().getUnqualifiedName(), idValues.get(i));
+        }
+    }
+
+    /**
+     * Retrieves all values from the (potentially composite) id.
+     * @param id the ID value, not null.
+     * @return the values, in the order of {@link EntityMeta#getIdProperty()}.
+     */
+    @NotNull
+    private List<Object> getIdValues(@NotNull ID id) {
+        if (!meta.hasCompositeKey()) {
             // fall back to the safer+faster simple way
-            query.bind(idProperties.get(0).getDbName().getUnqualifiedName(), id);
+            return Collections.singletonList(id);
+        }
+        // the ID properties have the field path of id.component; read the components from the ID instance directly.
+        final List<PropertyMeta> idProperties = meta.getIdProperty();
+        final List<Object> result = new ArrayList<>(idProperties.size());
+        for (PropertyMeta idProperty : idProperties) {
+            result.add(idProperty.getFromFirstFieldValue(id));
+        }
+        return result;
+    }
+
+    /**
+     * Splits given ids into chunks small enough to be passed to a single SQL statement,
+     * see {@link Quirks#maxStatementParameters()}.
+     * @param handle the handle, used to look up the {@link Quirks}.
+     * @param ids the IDs, not null, must not contain nulls.
+     * @return the chunks, not null. All chunks have the same size except for the last one.
+     */
+    @NotNull
+    protected List<List<ID>> chunkIds(@NotNull Handle handle, @NotNull Collection<ID> ids) {
+        final int idColumns = meta.getIdProperty().size();
+        final int chunkSize = Math.max(1, Math.min(JdbiOrm.getBatchSize(), Quirks.from(handle).maxStatementParameters() / idColumns));
+        final List<ID> list = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            list.add(Objects.requireNonNull(id, "ids must not contain nulls"));
+        }
+        final List<List<ID>> result = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            result.add(list.subList(from, Math.min(from + chunkSize, list.size())));
+        }
+        return result;
+    }
+
+    /**
+     * Produces a WHERE clause (without the `WHERE` keyword) matching rows with any of {@code idCount} ids.
+     * The ID values are referenced via parameters; use {@link #bindIdsIn(SqlStatement, List)} to bind them.
+     * The SQL only depends on {@code idCount}, therefore it can be reused for chunks of the same size.
+     * <p></p>
+     * Composite keys are matched via <code>(a, b) IN ((:id0_0, :id0_1), ...)</code> if the database
+     * {@link Quirks#supportsRowValueIn() supports that}, or via <code>(a = :id0_0 AND b = :id0_1) OR ...</code>
+     * otherwise.
+     * @param handle the handle, used to look up the {@link Quirks}.
+     * @param idCount the number of IDs, 1 or greater.
+     * @return the WHERE clause, not null.
+     */
+    @NotNull
+    protected String getIdInClause(@NotNull Handle handle, int idCount) {
+        final List<PropertyMeta> idProperties = meta.getIdProperty();
+        final StringBuilder sb = new StringBuilder();
+        if (!meta.hasCompositeKey()) {
+            sb.append(idProperties.get(0).getDbName().getUnqualifiedName()).append(" IN (");
+            for (int i = 0; i < idCount; i++) {
+                sb.append(i == 0 ? ":id" : ", :id").append(i).append("_0");
+            }
+            return sb.append(")").toString();
+        }
+        if (Quirks.from(handle).supportsRowValueIn()) {
+            sb.append(idProperties.stream().map(it -> it.getDbName().getUnqualifiedName()).collect(Collectors.joining(", ", "(", ")")));
+            sb.append(" IN (");
+            for (int i = 0; i < idCount; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append("(");
+                for (int j = 0; j < idProperties.size(); j++) {
+                    sb.append(j == 0 ? ":id" : ", :id").append(i).append("_").append(j);
+                }
+                sb.append(")");
+            }
+            return sb.append(")").toString();
+        }
+        for (int i = 0; i < idCount; i++) {
+            if (i > 0) {
+                sb.append(" OR ");
+            }
+            sb.append("(");
+            for (int j = 0; j < idProperties.size(); j++) {
+                if (j > 0) {
+                    sb.append(" AND ");
+                }
+                sb.append(idProperties.get(j).getDbName().getUnqualifiedName()).append(" = :id").append(i).append("_").append(j);
+            }
+            sb.append(")");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Binds values of given IDs to parameters referenced by {@link #getIdInClause(Handle, int)}.
+     * @param statement the statement to bind the values to, not null.
+     * @param ids the IDs, not null.
+     */
+    protected void bindIdsIn(@NotNull SqlStatement<?> statement, @NotNull List<ID> ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            final List<Object> idValues = getIdValues(ids.get(i));
+            for (int j = 0; j < idValues.size(); j++) {
+                statement.bind("id" + i + "_" + j, idValues.get(j));
+            }
         }
     }
 
@@ -93,12 +209,94 @@ public class Dao<T extends AbstractEntity<ID>, ID> extends DaoOfAny<T> {
      */
     public boolean existsById(@NotNull ID id) {
         Objects.requireNonNull(id, "id");
-        return jdbi().withHandle(handle -> {
-            final Query query = handle.createQuery("select count(1) from <TABLE> where <ID>")
-                    .define("TABLE", meta.getDatabaseTableName());
-            passIdValuesToQuery(query, id);
-            return query.mapTo(Long.class).one() > 0;
+        final EntityMeta.StatementPlan plan = meta.getExistsByIdPlan();
+        return jdbi().withHandle(handle -> selectExists(handle, plan.getSql(), query -> plan.bindValues(query, getIdValues(id))));
+    }
+
+    /**
+     * Retrieves entities with given IDs. Unlike calling {@link #findById(Object)} in a loop, the rows are fetched in chunks,
+     * using <code>SELECT ... WHERE id IN (...)</code>; the chunk size is chosen so that the database limit of statement
+     * parameters is not exceeded (see {@link Quirks#maxStatementParameters()}). All chunks are padded to the same size,
+     * so that the same SQL statement is reused for all of them.
+     * @param ids the IDs, not null, must not contain nulls. Duplicate IDs are fetched once.
+     * @return maps the IDs to the entities, in the order of {@code ids}. IDs with no corresponding row are not present in the map.
+     */
+    @NotNull
+    public Map<ID, T> findByIds(@NotNull Collection<ID> ids) {
+        final Map<List<Object>, T> rows = new HashMap<>();
+        final Map<List<Object>, ID> idsByKey = selectByIds(ids, meta.getSelectFields(), getRowMapper(),
+                entity -> rows.put(getIdValues(getIdOf(entity)), entity));
+        final Map<ID, T> result = new LinkedHashMap<>();
+        idsByKey.forEach((key, id) -> {
+            final T entity = rows.get(key);
+            if (entity != null) {
+                result.put(id, entity);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Checks which of given IDs have a corresponding row. The rows are probed in chunks, see {@link #findByIds(Collection)} for details;
+     * only the ID columns are selected.
+     * @param ids the IDs, not null, must not contain nulls.
+     * @return the IDs which have a corresponding row, in the order of {@code ids}. Not null.
+     */
+    @NotNull
+    public Set<ID> findExistingIds(@NotNull Collection<ID> ids) {
+        final List<PropertyMeta> idProperties = meta.getIdProperty();
+        final Set<List<Object>> existing = new HashSet<>();
+        final Map<List<Object>, ID> idsByKey = selectByIds(ids,
+                idProperties.stream().map(it -> it.getDbName().getQualifiedName()).collect(Collectors.joining(", ")),
+                EntityMeta.columnValuesMapper(idProperties), values -> existing.add(Arrays.asList(values)));
+        final Set<ID> result = new LinkedHashSet<>();
+        idsByKey.forEach((key, id) -> {
+            if (existing.contains(key)) {
+                result.add(id);
+            }
         });
+        return result;
+    }
+
+    /**
+     * Runs <code>SELECT columns FROM table WHERE id IN (...)</code> in chunks, passing all rows to given consumer.
+     * @return the distinct ids, keyed by {@link #getIdValues(Object)}, in the order of {@code ids}.
+     */
+    @NotNull
+    private <R> Map<List<Object>, ID> selectByIds(@NotNull Collection<ID> ids, @NotNull String columns,
+                                                  @NotNull RowMapper<R> rowMapper, @NotNull Consumer<R> consumer) {
+        Objects.requireNonNull(ids, "ids");
+        final Map<List<Object>, ID> idsByKey = new LinkedHashMap<>();
+        for (ID id : ids) {
+            idsByKey.putIfAbsent(getIdValues(Objects.requireNonNull(id, "ids must not contain nulls")), id);
+        }
+        if (idsByKey.isEmpty()) {
+            return idsByKey;
+        }
+        jdbi().useHandle(handle -> {
+            final List<List<ID>> chunks = chunkIds(handle, idsByKey.values());
+            final int chunkSize = chunks.get(0).size();
+            final String sql = "select " + columns + " from " + meta.getDatabaseTableName() + " where " + getIdInClause(handle, chunkSize);
+            for (List<ID> chunk : chunks) {
+                if (chunk.size() < chunkSize) {
+                    // repeat the last ID, so that the statement can be reused.
+                    chunk = new ArrayList<>(chunk);
+                    while (chunk.size() < chunkSize) {
+                        chunk.add(chunk.get(chunk.size() - 1));
+                    }
+                }
+                final Query query = handle.createQuery(sql);
+                bindIdsIn(query, chunk);
+                query.map(rowMapper).forEach(consumer);
+            }
+        });
+        return idsByKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private ID getIdOf(@NotNull T entity) {
+        return (ID) Objects.requireNonNull(meta.getId(entity));
     }
 
     /**
@@ -106,11 +304,306 @@ public class Dao<T extends AbstractEntity<ID>, ID> extends DaoOfAny<T> {
      */
     public void deleteById(@NotNull ID id) {
         Objects.requireNonNull(id, "id");
-        jdbi().withHandle(handle -> {
-            final Update update = handle.createUpdate("delete from <TABLE> where <ID>")
-                    .define("TABLE", meta.getDatabaseTableName());
-            passIdValuesToQuery(update, id);
-            return update.execute();
+        jdbi().useHandle(handle -> {
+            final EntityMeta.StatementPlan plan = meta.getDeleteByIdPlan();
+            final Update update = handle.createUpdate(plan.getSql());
+            plan.bindValues(update, getIdValues(id));
+            update.execute();
+            RowCountCache.invalidate(handle, meta.getDatabaseTableName());
         });
     }
+
+    /**
+     * Deletes rows with given IDs. IDs with no corresponding row are ignored.
+     * <p></p>
+     * The rows are deleted in chunks, using <code>DELETE ... WHERE id IN (...)</code>; the chunk size is chosen
+     * so that the database limit of statement parameters is not exceeded (see {@link Quirks#maxStatementParameters()}).
+     * All chunks are deleted in one transaction.
+     * @param ids the IDs to delete, not null, must not contain nulls.
+     * @return the total number of deleted rows.
+     */
+    public int deleteByIds(@NotNull Collection<ID> ids) {
+        Objects.requireNonNull(ids, "ids");
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return jdbi().inTransaction(handle -> {
+            int deleted = 0;
+            for (List<ID> chunk : chunkIds(handle, ids)) {
+                final Update update = handle.createUpdate("delete from <TABLE> where <WHERE>")
+                        .define("TABLE", meta.getDatabaseTableName())
+                        .define("WHERE", getIdInClause(handle, chunk.size()));
+                bindIdsIn(update, chunk);
+                deleted += update.execute();
+            }
+            RowCountCache.invalidate(handle, meta.getDatabaseTableName());
+            return deleted;
+        });
+    }
+
+    /**
+     * Inserts all given entities into the database, in one transaction. Entities are sent to the database
+     * in JDBC batches of at most {@link JdbiOrm#getBatchSize()} rows, which is much faster than calling
+     * {@link Entity#create()} in a loop.
+     * <p></p>
+     * Similar to {@link Entity#create()}, the INSERT is always issued. If the entity ID is null, the ID is
+     * expected to be generated by the database and is stored back into the entity. The rows are inserted
+     * in the order of the collection; mixing entities with and without ID splits the batches, though.
+     * <p></p>
+     * All entities are validated first; nothing is inserted if any of the entities is invalid.
+     * <p></p>
+     * <strong>WARNING</strong>: {@link Entity#create(boolean)} is not called, therefore any
+     * overrides of that method (e.g. to generate UUID IDs) will not be run.
+     * @param entities the entities to insert, not null.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     */
+    public void createAll(@NotNull Collection<T> entities) {
+        createAll(entities, true);
+    }
+
+    /**
+     * Inserts all given entities into the database, in one transaction. See {@link #createAll(Collection)} for details.
+     * @param entities the entities to insert, not null.
+     * @param validate if true, all entities are validated first. Nothing is inserted if any of the entities is invalid.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     */
+    public void createAll(@NotNull Collection<T> entities, boolean validate) {
+        Objects.requireNonNull(entities, "entities");
+        if (validate) {
+            entities.forEach(this::validate);
+        }
+        meta.defaultCreateAll(entities);
+    }
+
+    /**
+     * Saves all given entities, in one transaction. Similar to {@link Entity#save()}: entities with null ID
+     * are inserted via {@link #createAll(Collection)}, while the rows of all other entities are updated.
+     * The UPDATE statements share one prepared statement and are sent to the database
+     * in JDBC batches of at most {@link JdbiOrm#getBatchSize()} rows. All INSERTs are issued before the UPDATEs.
+     * <p></p>
+     * All entities are validated first; nothing is saved if any of the entities is invalid.
+     * <p></p>
+     * <strong>WARNING</strong>: {@link Entity#save(boolean)} is not called, therefore any
+     * overrides of that method will not be run.
+     * @param entities the entities to save, not null.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     * @throws IllegalStateException if there is no row for some of the entities. The exception message lists IDs
+     * of all such entities; the transaction is rolled back and nothing is saved.
+     */
+    public void saveAll(@NotNull Collection<T> entities) {
+        saveAll(entities, true);
+    }
+
+    /**
+     * Saves all given entities, in one transaction. See {@link #saveAll(Collection)} for details.
+     * @param entities the entities to save, not null.
+     * @param validate if true, all entities are validated first. Nothing is saved if any of the entities is invalid.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     * @throws IllegalStateException if there is no row for some of the entities.
+     */
+    public void saveAll(@NotNull Collection<T> entities, boolean validate) {
+        Objects.requireNonNull(entities, "entities");
+        if (validate) {
+            entities.forEach(this::validate);
+        }
+        meta.defaultSaveAll(entities);
+    }
+
+    /**
+     * Inserts given entity into the database, or updates the existing row if there already is a row with the same ID.
+     * Unlike calling {@link #existsById(Object)} followed by {@link Entity#create()} or {@link Entity#save()},
+     * this runs a single statement and is therefore safe to be called concurrently for the same ID; this makes it
+     * ideal for entities with natural IDs or IDs generated by the application.
+     * <p></p>
+     * The statement is database-specific: <code>INSERT ... ON CONFLICT DO UPDATE</code> on PostgreSQL and CockroachDB,
+     * <code>INSERT ... ON DUPLICATE KEY UPDATE</code> on MySQL and MariaDB, <code>MERGE</code> on H2 and MSSQL;
+     * see {@link Quirks#upsert(String, List, List)}. If the ID is null, the entity is simply created and the ID
+     * generated by the database is stored back into the entity.
+     * <p></p>
+     * Not supported for entities with a {@link Version} property: the statement would overwrite the row
+     * regardless of its version.
+     * <p></p>
+     * The entity is validated first.
+     * @param entity the entity to insert or update, not null.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     * @throws UnsupportedOperationException if the entity has a {@link Version} property.
+     */
+    public void upsert(@NotNull T entity) {
+        upsert(entity, true);
+    }
+
+    /**
+     * Inserts given entity into the database, or updates the existing row if there already is a row with the same ID.
+     * See {@link #upsert(Object)} for details.
+     * @param entity the entity to insert or update, not null.
+     * @param validate if false, the validation is skipped.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     * @throws UnsupportedOperationException if the entity has a {@link Version} property.
+     */
+    public void upsert(@NotNull T entity, boolean validate) {
+        Objects.requireNonNull(entity, "entity");
+        if (validate) {
+            validate(entity);
+        }
+        meta.defaultUpsert(entity);
+    }
+
+    /**
+     * Calls {@link #upsert(Object)} for all given entities, in one transaction. Entities are sent to the database
+     * in JDBC batches of at most {@link JdbiOrm#getBatchSize()} statements. Entities with null ID are
+     * created as with {@link #createAll(Collection)}, before the other entities are upserted.
+     * <p></p>
+     * All entities are validated first; nothing is stored if any of the entities is invalid.
+     * @param entities the entities to insert or update, not null.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     * @throws UnsupportedOperationException if the entity has a {@link Version} property.
+     */
+    public void upsertAll(@NotNull Collection<T> entities) {
+        upsertAll(entities, true);
+    }
+
+    /**
+     * Calls {@link #upsert(Object)} for all given entities, in one transaction. See {@link #upsertAll(Collection)} for details.
+     * @param entities the entities to insert or update, not null.
+     * @param validate if false, the validation is skipped.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     * @throws UnsupportedOperationException if the entity has a {@link Version} property.
+     */
+    public void upsertAll(@NotNull Collection<T> entities, boolean validate) {
+        Objects.requireNonNull(entities, "entities");
+        if (validate) {
+            entities.forEach(this::validate);
+        }
+        meta.defaultUpsertAll(entities);
+    }
+
+    /**
+     * Streams given entities into the database, in one transaction. Meant for very large imports: the entities
+     * are pulled from the iterator lazily and only a bounded number of them is held in memory at any time.
+     * <p></p>
+     * Uses the fastest mechanism available: <code>COPY ... FROM STDIN</code> on PostgreSQL (provided that all columns
+     * are of simple types such as strings, numbers, enums, UUIDs, <code>java.time</code> local types or <code>byte[]</code>),
+     * and JDBC batches of multi-row <code>INSERT</code> statements otherwise.
+     * <p></p>
+     * Either all entities must have the ID set, or none of them. In the latter case the IDs are generated by the database,
+     * but, unlike {@link #createAll(Collection)}, they are <b>not</b> stored back into the entities.
+     * Every entity is validated right before it's written to the database.
+     * <p></p>
+     * <strong>WARNING</strong>: {@link Entity#create(boolean)} is not called, therefore any
+     * overrides of that method (e.g. to generate UUID IDs) will not be run.
+     * @param entities the entities to insert, not null.
+     * @return the number of loaded rows and the throughput, not null.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails. The transaction is rolled back.
+     */
+    @NotNull
+    public BulkLoadResult bulkLoad(@NotNull Iterator<T> entities) {
+        return bulkLoad(entities, true);
+    }
+
+    /**
+     * Streams given entities into the database, in one transaction. See {@link #bulkLoad(Iterator)} for details.
+     * @param entities the entities to insert, not null.
+     * @param validate if false, the validation is skipped.
+     * @return the number of loaded rows and the throughput, not null.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails. The transaction is rolled back.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public BulkLoadResult bulkLoad(@NotNull Iterator<T> entities, boolean validate) {
+        Objects.requireNonNull(entities, "entities");
+        return new BulkLoader(meta, validate ? entity -> validate((T) entity) : entity -> {}).load(entities);
+    }
+
+    /**
+     * Re-populates all given entities with the up-to-date values from the database. Unlike calling {@link Entity#reload()}
+     * in a loop, the rows are fetched in chunks, using <code>SELECT ... WHERE id IN (...)</code>
+     * (see {@link Quirks#maxStatementParameters()}), and the values are stored directly into the entities.
+     * Entities with the same ID are all re-populated.
+     * @param entities the entities to reload, not null, must not contain nulls. The IDs must not be null.
+     * @throws IllegalStateException if the row of some of the entities no longer exists. The other entities are reloaded nevertheless.
+     */
+    public void reloadAll(@NotNull Collection<T> entities) {
+        reloadAll(entities, true);
+    }
+
+    /**
+     * Re-populates all given entities with the up-to-date values from the database. See {@link #reloadAll(Collection)} for details.
+     * @param entities the entities to reload, not null, must not contain nulls. The IDs must not be null.
+     * @param failOnMissing if true, {@link IllegalStateException} is thrown when the row of some of the entities no longer exists.
+     * @return the entities whose rows no longer exist; they are left untouched. Not null, empty if all entities were reloaded.
+     * @throws IllegalStateException if the ID of some of the entities is null, or if {@code failOnMissing} and some of the rows no longer exist.
+     */
+    @SuppressWarnings("unchecked")
+    @NotNull
+    public List<T> reloadAll(@NotNull Collection<T> entities, boolean failOnMissing) {
+        Objects.requireNonNull(entities, "entities");
+        // the same row may be reloaded into multiple instances. Key the instances by the values of the ID columns,
+        // so that they can be matched against the fetched rows.
+        final Map<List<Object>, List<T>> entitiesById = new LinkedHashMap<>();
+        final Map<List<Object>, ID> ids = new LinkedHashMap<>();
+        for (T entity : entities) {
+            Objects.requireNonNull(entity, "entities must not contain nulls");
+            final ID id = (ID) meta.getId(entity);
+            if (id == null) {
+                throw new IllegalStateException("Invalid state: id is null: " + entity);
+            }
+            final List<Object> key = getIdValues(id);
+            entitiesById.computeIfAbsent(key, k -> new ArrayList<>()).add(entity);
+            ids.putIfAbsent(key, id);
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<PropertyMeta> idProperties = meta.getIdProperty();
+        final List<PropertyMeta> columns = new ArrayList<>(idProperties);
+        for (PropertyMeta property : meta.getProperties()) {
+            if (!idProperties.contains(property)) {
+                columns.add(property);
+            }
+        }
+        final String columnList = columns.stream().map(it -> it.getDbName().getUnqualifiedName()).collect(Collectors.joining(", "));
+        jdbi().useTransaction(handle -> {
+            for (List<ID> chunk : chunkIds(handle, ids.values())) {
+                final Query query = handle.createQuery("select <COLUMNS> from <TABLE> where <WHERE>")
+                        .define("COLUMNS", columnList)
+                        .define("TABLE", meta.getDatabaseTableName())
+                        .define("WHERE", getIdInClause(handle, chunk.size()));
+                bindIdsIn(query, chunk);
+                query.map(EntityMeta.columnValuesMapper(columns)).forEach(values -> {
+                    final List<T> reloaded = entitiesById.remove(Arrays.asList(values).subList(0, idProperties.size()));
+                    if (reloaded == null) {
+                        return;
+                    }
+                    for (T entity : reloaded) {
+                        for (int i = idProperties.size(); i < values.length; i++) {
+                            columns.get(i).set(entity, values[i]);
+                        }
+                        if (meta.isDirtyTracking()) {
+                            meta.snapshot(entity);
+                        }
+                    }
+                });
+            }
+        });
+        // the rows of the remaining entities no longer exist.
+        final List<T> missing = new ArrayList<>();
+        entitiesById.values().forEach(missing::addAll);
+        if (failOnMissing && !missing.isEmpty()) {
+            throw new IllegalStateException("There is no " + entityClass.getSimpleName() + " for ids "
+                    + missing.stream().map(meta::getId).distinct().collect(Collectors.toList()));
+        }
+        return missing;
+    }
+
+    /**
+     * Validates given entity: calls {@link Entity#validate()} if possible, to honor any overrides.
+     * @param entity the entity to validate, not null.
+     */
+    void validate(@NotNull T entity) {
+        if (entity instanceof Entity) {
+            ((Entity<?>) entity).validate();
+        } else {
+            meta.defaultValidate(entity);
+        }
+    }
 }
@@ -1,25 +1,42 @@
 package com.gitlab.mvysny.jdbiorm;
 
 import com.gitlab.mvysny.jdbiorm.condition.Condition;
+import com.gitlab.mvysny.jdbiorm.condition.Expression;
+import com.gitlab.mvysny.jdbiorm.condition.NativeSQL;
 import com.gitlab.mvysny.jdbiorm.condition.ParametrizedSql;
 import com.gitlab.mvysny.jdbiorm.jdbi.FieldMapper;
 import com.gitlab.mvysny.jdbiorm.quirks.Quirks;
 import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.mapper.ColumnMapper;
 import org.jdbi.v3.core.mapper.MapMapper;
 import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.core.result.ResultIterable;
 import org.jdbi.v3.core.result.ResultIterator;
 import org.jdbi.v3.core.statement.Binding;
 import org.jdbi.v3.core.statement.Query;
+import org.jdbi.v3.core.statement.StatementContext;
 import org.jdbi.v3.core.statement.Update;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.gitlab.mvysny.jdbiorm.JdbiOrm.jdbi;
 
@@ -261,29 +278,685 @@ public class DaoOfAny<T> implements Serializable {
         if (limit != null && limit == 0L) {
             return empty;
         }
-        final StringBuilder sql = new StringBuilder("select <FIELDS> from <TABLE>");
+        checkOffsetLimit(offset, limit);
+        return jdbi().withHandle(handle -> {
+                    final Query query = createFindQuery(handle, null, where, orderBy, offset, limit);
+                    queryConsumer.accept(query);
+                    final ResultIterable<T> resultIterable = query
+                            .map(getRowMapper());
+                    return iterableMapper.apply(resultIterable);
+                }
+        );
+    }
+
+    /**
+     * Finds all matching rows, fetching only given columns. Useful e.g. for list views, to skip wide columns such as BLOBs
+     * without having to introduce a separate view class.
+     * <p></p>
+     * The rows are mapped via {@link FieldMapper}: {@code target} may be the entity class itself (the properties which
+     * are not selected are left at their default values), or any DTO with fields named after the selected columns.
+     * @param where the where condition. If null, all rows are matched.
+     * @param select the properties to select, not empty.
+     * @param target the class to map the rows to, not null.
+     * @return the list of rows, not null.
+     * @param <R> the type of the rows.
+     */
+    @NotNull
+    public <R> List<R> findAllProjectedBy(@Nullable Condition where, @NotNull List<? extends Property<?>> select, @NotNull Class<R> target) {
+        return findAllProjectedBy(where, Collections.emptyList(), null, null, select, target);
+    }
+
+    /**
+     * Finds all matching rows, fetching only given columns. See {@link #findAllProjectedBy(Condition, List, Class)} for details.
+     * @param where the where condition. If null, all rows are matched.
+     * @param orderBy the ordering of the rows. May be empty, in such case no ordering is applied.
+     * @param offset start from this row. If not null, must be 0 or greater.
+     * @param limit return this count of row at most. If not null, must be 0 or greater.
+     * @param select the properties to select, not empty.
+     * @param target the class to map the rows to, not null.
+     * @return the list of rows, not null.
+     * @param <R> the type of the rows.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <R> List<R> findAllProjectedBy(@Nullable Condition where, @NotNull List<OrderBy> orderBy,
+                                          @Nullable Long offset, @Nullable Long limit,
+                                          @NotNull List<? extends Property<?>> select, @NotNull Class<R> target) {
+        Objects.requireNonNull(target, "target");
+        final RowMapper<R> rowMapper = target == entityClass ? (RowMapper<R>) getRowMapper() : FieldMapper.of(target);
+        return findProjection(where, orderBy, offset, limit, select, rowMapper);
+    }
+
+    /**
+     * Finds the values of given property of all matching rows. Only the column of the property is fetched.
+     * @param property the property to fetch, not null.
+     * @param where the where condition. If null, all rows are matched.
+     * @return the values, not null. May contain nulls.
+     * @param <V> the type of the values.
+     */
+    @NotNull
+    public <V> List<V> findValues(@NotNull Property<V> property, @Nullable Condition where) {
+        return findValues(property, where, Collections.emptyList());
+    }
+
+    /**
+     * Finds the values of given property of all matching rows. Only the column of the property is fetched.
+     * @param property the property to fetch, not null.
+     * @param where the where condition. If null, all rows are matched.
+     * @param orderBy the ordering of the rows. May be empty, in such case no ordering is applied.
+     * @return the values, not null. May contain nulls.
+     * @param <V> the type of the values.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <V> List<V> findValues(@NotNull Property<V> property, @Nullable Condition where, @NotNull List<OrderBy> orderBy) {
+        Objects.requireNonNull(property, "property");
+        if (property instanceof TableProperty) {
+            // map the value exactly as the entity field would be mapped, honoring the generic type and the qualifiers of the field.
+            final TableProperty<?, V> tableProperty = (TableProperty<?, V>) property;
+            final PropertyMeta meta = EntityMeta.of(tableProperty.getEntityClass()).findProperty(tableProperty.getName());
+            if (meta != null) {
+                final RowMapper<Object[]> mapper = EntityMeta.columnValuesMapper(Collections.singletonList(meta));
+                return findProjection(where, orderBy, null, null, Collections.singletonList(property), (rs, ctx) -> (V) mapper.map(rs, ctx)[0]);
+            }
+        }
+        final RowMapper<V> rowMapper = new RowMapper<V>() {
+            @Override
+            public V map(ResultSet rs, StatementContext ctx) throws SQLException {
+                return specialize(rs, ctx).map(rs, ctx);
+            }
+
+            @Override
+            public RowMapper<V> specialize(ResultSet rs, StatementContext ctx) {
+                final ColumnMapper<?> mapper = ctx.findColumnMapperFor(property.getValueType())
+                        .orElse(ColumnMapper.getDefaultColumnMapper());
+                return (r, c) -> (V) mapper.map(r, 1, c);
+            }
+        };
+        return findProjection(where, orderBy, null, null, Collections.singletonList(property), rowMapper);
+    }
+
+    @NotNull
+    private <R> List<R> findProjection(@Nullable Condition where, @NotNull List<OrderBy> orderBy,
+                                       @Nullable Long offset, @Nullable Long limit,
+                                       @NotNull List<? extends Property<?>> select, @NotNull RowMapper<R> rowMapper) {
+        Objects.requireNonNull(orderBy, "orderBy");
+        if (select.isEmpty()) {
+            throw new IllegalArgumentException("Parameter select: invalid value " + select + ": must not be empty");
+        }
+        if (limit != null && limit == 0L) {
+            return new ArrayList<>();
+        }
+        checkOffsetLimit(offset, limit);
+        final String columns = select.stream()
+                .map(it -> it.getDbName().getQualifiedName())
+                .collect(Collectors.joining(", "));
+        final ParametrizedSql sql = where == null || where == Condition.NO_CONDITION ? null : where.toSql();
+        return jdbi().withHandle(handle -> {
+            final Query query = createProjectionQuery(handle, columns, sql == null ? null : sql.getSql92(), toSqlOrderClause(orderBy), offset, limit);
+            if (sql != null) {
+                sql.bindTo(query);
+            }
+            return query.map(rowMapper).list();
+        });
+    }
+
+    /**
+     * Creates the query selecting only given columns of the matching rows, used by the projection finders
+     * such as {@link #findAllProjectedBy(Condition, List, Class)}.
+     * @param handle the handle to create the query with, not null.
+     * @param columns the columns to select, e.g. {@code Person.id, Person.name}.
+     * @param where the where clause, e.g. {@code name = :name}. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param orderBy if not null, this is passed in as the ORDER BY clause, e.g. {@code surname ASC, name ASC}. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param offset start from this row. If not null, must be 0 or greater.
+     * @param limit return this count of row at most. If not null, must be 1 or greater.
+     * @return the query, not null. The parameters referenced by {@code where} are not bound yet.
+     */
+    @NotNull
+    protected Query createProjectionQuery(@NotNull Handle handle, @NotNull String columns,
+                                          @Nullable String where, @Nullable String orderBy,
+                                          @Nullable Long offset, @Nullable Long limit) {
+        return createFindQuery(handle, null, where, orderBy, offset, limit)
+                .define("FIELDS", columns);
+    }
+
+    /**
+     * Creates the query selecting the matching rows, used by all finders.
+     * @param handle the handle to create the query with, not null.
+     * @param extraColumns if not null, these columns are selected before the columns mapped to the entity, e.g. {@code Person.id AS k0}.
+     * @param where the where clause, e.g. {@code name = :name}. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param orderBy if not null, this is passed in as the ORDER BY clause, e.g. {@code surname ASC, name ASC}. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param offset start from this row. If not null, must be 0 or greater.
+     * @param limit return this count of row at most. If not null, must be 1 or greater.
+     * @return the query, not null. The parameters referenced by {@code where} are not bound yet.
+     */
+    @NotNull
+    protected Query createFindQuery(@NotNull Handle handle, @Nullable String extraColumns,
+                                    @Nullable String where, @Nullable String orderBy,
+                                    @Nullable final Long offset, @Nullable final Long limit) {
+        final StringBuilder sql = new StringBuilder("select ");
+        if (extraColumns != null) {
+            sql.append(extraColumns).append(", ");
+        }
+        sql.append("<FIELDS> from <TABLE>");
         if (where != null) {
             sql.append(" where <WHERE>");
         }
         if (orderBy != null) {
             sql.append(" order by ").append(orderBy);
         }
+        // H2 requires ORDER BY after LIMIT+OFFSET clauses.
+        appendOffsetLimit(sql, handle, offset, limit, orderBy != null);
+        final Query query = handle.createQuery(sql.toString())
+                .define("FIELDS", meta.getSelectFields())
+                .define("TABLE", meta.getDatabaseTableName());
+        if (where != null) {
+            query.define("WHERE", where);
+        }
+        return query;
+    }
+
+    /**
+     * Starts building a <code>GROUP BY</code> query over the rows of this DAO, e.g.
+     * <code>aggregate().groupBy(Person.MARITAL_STATUS).count().avg(Person.AGE).list(MaritalStatusStats.class)</code>.
+     * See {@link AggregateQuery} for details.
+     * @return the query builder, not null.
+     */
+    @NotNull
+    public AggregateQuery<T> aggregate() {
+        return new AggregateQuery<>(this);
+    }
+
+    /**
+     * The <code>FROM</code> clause of the aggregate queries built by {@link #aggregate()}.
+     * @return <code>FROM</code> followed by the table name, not null.
+     */
+    @NotNull
+    protected String getFromClause() {
+        return "FROM " + meta.getDatabaseTableName();
+    }
+
+    /**
+     * Fetches a page of matching rows via keyset (seek) pagination. Unlike OFFSET paging, which needs to walk
+     * through all of the skipped rows, the database seeks directly to the first row of the page via the
+     * <code>WHERE</code> clause, and the query takes the same time regardless of how deep the page is.
+     * <p></p>
+     * The rows are sorted by {@code orderBy}, followed by the {@link #getUniqueKey() unique key} which acts as a tie-breaker,
+     * so that the ordering is total and no row is skipped or returned twice. The rows following the last row of the previous page
+     * are then selected by a predicate such as <code>(a &gt; :a) OR (a = :a AND b &lt; :b) OR (a = :a AND b = :b AND id &gt; :id)</code>,
+     * which supports any combination of ascending and descending keys.
+     * <p></p>
+     * The sort keys must not be null; the values of the keys of the last row are handed out as an opaque cursor,
+     * see {@link KeysetPage#getNextCursor()}.
+     * @param where the where condition. If null, all rows are matched.
+     * @param orderBy the ordering of the rows, may be empty. Must be the same for all pages.
+     * @param cursor null to fetch the first page; {@link KeysetPage#getNextCursor()} of the previous page to fetch the next page.
+     * @param limit the maximum number of rows on the page, 1 or greater.
+     * @return the page, not null.
+     * @throws IllegalArgumentException if the cursor is malformed or was created for a different ordering.
+     */
+    @NotNull
+    public KeysetPage<T> findPageAfter(@Nullable Condition where, @NotNull List<OrderBy> orderBy, @Nullable String cursor, long limit) {
+        Objects.requireNonNull(orderBy, "orderBy");
+        if (limit < 1) {
+            throw new IllegalArgumentException("Parameter limit: invalid value " + limit + ": must be 1 or greater");
+        }
+        final List<OrderBy> keys = new ArrayList<>(orderBy);
+        for (Property<?> property : getUniqueKey()) {
+            if (keys.stream().noneMatch(it -> it.getProperty().equals(property))) {
+                keys.add(property.asc());
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("Parameter orderBy: invalid value " + orderBy + ": " + entityClass.getSimpleName() + " has no unique key, the ordering must be specified");
+        }
+        Condition condition = where == null ? Condition.NO_CONDITION : where;
+        if (cursor != null) {
+            condition = condition.and(seekAfter(keys, KeysetCursor.decode(cursor, keys)));
+        }
+        final ParametrizedSql sql = condition == Condition.NO_CONDITION ? null : condition.toSql();
+        final StringBuilder extraColumns = new StringBuilder();
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                extraColumns.append(", ");
+            }
+            extraColumns.append(keys.get(i).getProperty().getDbName().getQualifiedName()).append(" AS jdbiorm_key").append(i);
+        }
+        final RowMapper<T> rowMapper = getRowMapper();
+        final List<Map.Entry<Object[], T>> rows = jdbi().withHandle(handle -> {
+            final Query query = createFindQuery(handle, extraColumns.toString(), sql == null ? null : sql.getSql92(), toSqlOrderClause(keys), null, limit + 1);
+            if (sql != null) {
+                sql.bindTo(query);
+            }
+            return query.map(new RowMapper<Map.Entry<Object[], T>>() {
+                @Override
+                public Map.Entry<Object[], T> map(ResultSet rs, StatementContext ctx) throws SQLException {
+                    return specialize(rs, ctx).map(rs, ctx);
+                }
+
+                @Override
+                public RowMapper<Map.Entry<Object[], T>> specialize(ResultSet rs, StatementContext ctx) throws SQLException {
+                    final RowMapper<T> mapper = rowMapper.specialize(rs, ctx);
+                    return (r, c) -> {
+                        final Object[] values = new Object[keys.size()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = r.getObject(i + 1);
+                        }
+                        return new AbstractMap.SimpleImmutableEntry<>(values, mapper.map(r, c));
+                    };
+                }
+            }).list();
+        });
+        final List<T> items = rows.stream().limit(limit).map(Map.Entry::getValue).collect(Collectors.toList());
+        final String nextCursor = rows.size() > limit ? KeysetCursor.encode(keys, rows.get((int) limit - 1).getKey()) : null;
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    /**
+     * Fetches a page of matching rows, together with the total count of matching rows, e.g. to show a data grid
+     * with a paginator.
+     * <p></p>
+     * If the database {@link Quirks#supportsWindowFunctions(Handle) supports window functions}, the total count is selected
+     * by <code>COUNT(*) OVER()</code> alongside the rows, in a single statement. Otherwise, or if the page is empty
+     * (e.g. the offset points past the last row, so there is no row to carry the count), the rows are counted by a second statement,
+     * on the same handle. If the limit is 0, no rows are fetched and the rows are only counted.
+     * @param where the where condition. If null, all rows are matched.
+     * @param orderBy the ordering of the rows, may be empty.
+     * @param offset start from this row. If not null, must be 0 or greater.
+     * @param limit return this count of row at most. If not null, must be 0 or greater.
+     * @return the page, not null.
+     */
+    @NotNull
+    public Page<T> findPage(@Nullable Condition where, @NotNull List<OrderBy> orderBy, @Nullable Long offset, @Nullable Long limit) {
+        Objects.requireNonNull(orderBy, "orderBy");
         checkOffsetLimit(offset, limit);
-        return jdbi().withHandle(handle -> {
-                    // H2 requires ORDER BY after LIMIT+OFFSET clauses.
-                    appendOffsetLimit(sql, handle, offset, limit, orderBy != null);
-                    final Query query = handle.createQuery(sql.toString())
-                            .define("FIELDS", meta.getPersistedFieldDbNames().stream().map(Property.DbName::getQualifiedName).collect(Collectors.joining(", ")))
-                            .define("TABLE", meta.getDatabaseTableName());
-                    if (where != null) {
-                        query.define("WHERE", where);
+        final ParametrizedSql sql = where == null || where == Condition.NO_CONDITION ? null : where.toSql();
+        final String sqlWhere = sql == null ? null : sql.getSql92();
+        final String sqlOrderBy = toSqlOrderClause(orderBy);
+        final RowMapper<T> rowMapper = getRowMapper();
+        return jdbi().inTransaction(handle -> {
+            if (limit != null && limit == 0L) {
+                // some databases (e.g. MSSQL) reject LIMIT 0: only count the rows.
+                return new Page<>(new ArrayList<>(), countPage(handle, sql, 0));
+            }
+            if (supportsCountOver() && Quirks.from(handle).supportsWindowFunctions(handle)) {
+                final Query query = createFindQuery(handle, "COUNT(*) OVER() AS jdbiorm_total", sqlWhere, sqlOrderBy, offset, limit);
+                if (sql != null) {
+                    sql.bindTo(query);
+                }
+                final long[] total = {-1};
+                final List<T> items = query.map(new RowMapper<T>() {
+                    @Override
+                    public T map(ResultSet rs, StatementContext ctx) throws SQLException {
+                        return specialize(rs, ctx).map(rs, ctx);
                     }
-                    queryConsumer.accept(query);
-                    final ResultIterable<T> resultIterable = query
-                            .map(getRowMapper());
-                    return iterableMapper.apply(resultIterable);
+
+                    @Override
+                    public RowMapper<T> specialize(ResultSet rs, StatementContext ctx) throws SQLException {
+                        final RowMapper<T> mapper = rowMapper.specialize(rs, ctx);
+                        return (r, c) -> {
+                            total[0] = r.getLong(1);
+                            return mapper.map(r, c);
+                        };
+                    }
+                }).list();
+                if (!items.isEmpty() || offset == null || offset == 0) {
+                    return new Page<>(items, Math.max(total[0], 0));
                 }
-        );
+                return new Page<>(items, countPage(handle, sql, items.size()));
+            }
+            final Query query = createFindQuery(handle, null, sqlWhere, sqlOrderBy, offset, limit);
+            if (sql != null) {
+                sql.bindTo(query);
+            }
+            final List<T> items = query.map(rowMapper).list();
+            return new Page<>(items, countPage(handle, sql, items.size()));
+        });
+    }
+
+    private long countPage(@NotNull Handle handle, @Nullable ParametrizedSql where, int pageSize) {
+        final Query query = createCountQuery(handle, where == null ? null : where.getSql92());
+        if (where != null) {
+            where.bindTo(query);
+        }
+        // rows inserted/deleted by concurrent transactions may be visible to one statement but not the other.
+        return Math.max(query.mapTo(Long.class).one(), pageSize);
+    }
+
+    /**
+     * Whether {@link #findPage(Condition, List, Long, Long)} may select the total count via <code>COUNT(*) OVER()</code>
+     * alongside the columns of {@link #createFindQuery(Handle, String, String, String, Long, Long)}.
+     * @return true by default.
+     */
+    protected boolean supportsCountOver() {
+        return true;
+    }
+
+    /**
+     * Creates the predicate selecting the rows following the row with given key values.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private static Condition seekAfter(@NotNull List<OrderBy> keys, @NotNull Object[] values) {
+        Condition result = Condition.NO_CONDITION;
+        for (int i = 0; i < keys.size(); i++) {
+            Condition c = Condition.NO_CONDITION;
+            for (int j = 0; j < i; j++) {
+                c = c.and(((Property<Object>) keys.get(j).getProperty()).eq(values[j]));
+            }
+            final Property<Object> property = (Property<Object>) keys.get(i).getProperty();
+            c = c.and(keys.get(i).getOrder() == OrderBy.ASC ? property.gt(values[i]) : property.lt(values[i]));
+            result = result.or(c);
+        }
+        return result;
+    }
+
+    /**
+     * The properties which uniquely identify a row, used by {@link #findPageAfter(Condition, List, String, long)} as a tie-breaker.
+     * @return the {@link EntityMeta#getIdProperty() ID properties}, or an empty list if the entity has no ID.
+     */
+    @NotNull
+    protected List<Property<?>> getUniqueKey() {
+        if (!meta.hasIdProperty()) {
+            return Collections.emptyList();
+        }
+        return meta.getIdProperty().stream()
+                .map(it -> TableProperty.of(entityClass, it.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Streams all matching rows. Unlike the finders, the rows are not loaded into memory upfront: the JDBC driver fetches
+     * {@code fetchSize} rows at a time, and they are mapped into entities lazily, one by one, as the stream is consumed.
+     * This allows processing tables of any size in constant memory.
+     * <p></p>
+     * The stream holds an open database connection and <strong>must be closed</strong>, preferably via try-with-resources:
+     * <pre>
+     * try (Stream&lt;Person&gt; persons = Person.dao.stream(Person.AGE.gt(18), Person.NAME.asc())) {
+     *     persons.forEach(exporter::write);
+     * }
+     * </pre>
+     * The stream uses its own connection and read-only transaction (the PostgreSQL JDBC driver only honors the fetch size
+     * within a transaction), therefore it doesn't see uncommitted changes of the transaction running in the current thread.
+     * The MySQL JDBC driver ignores the fetch size unless <code>useCursorFetch=true</code> is set in the JDBC URL.
+     * @param where the where clause, e.g. {@code name = :name}. If null, all rows are matched. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param orderBy if not null, this is passed in as the ORDER BY clause, e.g. {@code surname ASC, name ASC}. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param fetchSize the number of rows the JDBC driver fetches at once, 1 or greater.
+     * @param queryConsumer allows you to set parameter values etc, for example {@code q -> q.bind("customerid", customerId")}.
+     * @return the stream of matching rows, not null. Must be closed.
+     */
+    @NotNull
+    public Stream<T> stream(@Nullable String where, @Nullable String orderBy, int fetchSize, @NotNull Consumer<Query> queryConsumer) {
+        final ResultIterator<T> iterator = iterator(where, orderBy, fetchSize, queryConsumer);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Streams all matching rows, fetching {@link JdbiOrm#getFetchSize()} rows at a time. See {@link #stream(String, String, int, Consumer)} for details.
+     * @param where the where condition. If null, all rows are matched.
+     * @param orderBy the ordering of the rows. May be empty, in such case no ordering is applied.
+     * @return the stream of matching rows, not null. Must be closed.
+     */
+    @NotNull
+    public Stream<T> stream(@Nullable Condition where, @NotNull OrderBy... orderBy) {
+        return stream(where, Arrays.asList(orderBy), JdbiOrm.getFetchSize());
+    }
+
+    /**
+     * Streams all matching rows. See {@link #stream(String, String, int, Consumer)} for details.
+     * @param where the where condition. If null, all rows are matched.
+     * @param orderBy the ordering of the rows. May be empty, in such case no ordering is applied.
+     * @param fetchSize the number of rows the JDBC driver fetches at once, 1 or greater.
+     * @return the stream of matching rows, not null. Must be closed.
+     */
+    @NotNull
+    public Stream<T> stream(@Nullable Condition where, @NotNull List<OrderBy> orderBy, int fetchSize) {
+        final ParametrizedSql sql = where == null || where == Condition.NO_CONDITION ? null : where.toSql();
+        return stream(sql == null ? null : sql.getSql92(), toSqlOrderClause(orderBy), fetchSize, sql == null ? q -> {} : sql::bindTo);
+    }
+
+    /**
+     * Iterates over all matching rows. Same as {@link #stream(String, String, int, Consumer)}, but returns an iterator.
+     * The iterator holds an open database connection and <strong>must be closed</strong>.
+     * @param where the where clause, e.g. {@code name = :name}. If null, all rows are matched. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param orderBy if not null, this is passed in as the ORDER BY clause, e.g. {@code surname ASC, name ASC}. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param fetchSize the number of rows the JDBC driver fetches at once, 1 or greater.
+     * @param queryConsumer allows you to set parameter values etc, for example {@code q -> q.bind("customerid", customerId")}.
+     * @return the iterator of matching rows, not null. Must be closed.
+     */
+    @NotNull
+    public ResultIterator<T> iterator(@Nullable String where, @Nullable String orderBy, int fetchSize, @NotNull Consumer<Query> queryConsumer) {
+        Objects.requireNonNull(queryConsumer, "queryConsumer");
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Parameter fetchSize: invalid value " + fetchSize + ": must be 1 or greater");
+        }
+        final Handle handle = jdbi().open();
+        try {
+            // lets the database skip the bookkeeping needed for writes; the flag is reset before the connection is released.
+            handle.setReadOnly(true);
+            handle.addCleanable(() -> handle.setReadOnly(false));
+            handle.begin();
+            final Query query = createFindQuery(handle, null, where, orderBy, null, null);
+            query.setFetchSize(fetchSize);
+            // ends the read-only transaction and closes the handle once the iterator is closed or exhausted.
+            query.cleanupHandleRollback();
+            queryConsumer.accept(query);
+            return query.map(getRowMapper()).iterator();
+        } catch (RuntimeException e) {
+            try {
+                handle.rollback();
+            } finally {
+                handle.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Iterates over all matching rows, fetching {@link JdbiOrm#getFetchSize()} rows at a time. See {@link #iterator(String, String, int, Consumer)} for details.
+     * @param where the where condition. If null, all rows are matched.
+     * @param orderBy the ordering of the rows. May be empty, in such case no ordering is applied.
+     * @return the iterator of matching rows, not null. Must be closed.
+     */
+    @NotNull
+    public ResultIterator<T> iterator(@Nullable Condition where, @NotNull List<OrderBy> orderBy) {
+        final ParametrizedSql sql = where == null || where == Condition.NO_CONDITION ? null : where.toSql();
+        return iterator(sql == null ? null : sql.getSql92(), toSqlOrderClause(orderBy), JdbiOrm.getFetchSize(), sql == null ? q -> {} : sql::bindTo);
+    }
+
+    /**
+     * How {@link #parallelScan(Condition, PartitionStrategy, int, int, Consumer)} splits the table into partitions.
+     */
+    public enum PartitionStrategy {
+        /**
+         * The minimum and maximum value of the unique key is probed first, and the range is then split into equally-sized
+         * ranges of IDs, e.g. <code>id &gt;= 1000 AND id &lt; 2000</code>. Each partition is able to use the primary key index,
+         * but the partitions are only balanced when the IDs are distributed evenly.
+         */
+        ID_RANGE,
+        /**
+         * The rows are split by the remainder of the unique key, e.g. <code>ABS(id % 4) = 1</code>. The partitions are
+         * balanced regardless of the gaps in the IDs, but every partition usually needs to scan the entire table.
+         */
+        ID_MODULO
+    }
+
+    /**
+     * Scans all matching rows in parallel, over {@code partitions} database connections, in chunks of
+     * {@link JdbiOrm#getFetchSize()} rows. The table is split by {@link PartitionStrategy#ID_RANGE ID ranges}.
+     * See {@link #parallelScan(Condition, PartitionStrategy, int, int, Consumer)} for details.
+     * @param where the where condition. If null, all rows are matched.
+     * @param partitions the number of partitions scanned in parallel, 1 or greater.
+     * @param sink receives the chunks of rows. Called concurrently from multiple threads, must be thread-safe.
+     */
+    public void parallelScan(@Nullable Condition where, int partitions, @NotNull Consumer<List<T>> sink) {
+        parallelScan(where, PartitionStrategy.ID_RANGE, partitions, JdbiOrm.getFetchSize(), sink);
+    }
+
+    /**
+     * Scans all matching rows in parallel, taking advantage of multiple database connections and CPU cores; useful for batch jobs
+     * processing entire tables. The table is split into {@code partitions} partitions by the {@link #getUniqueKey() unique key}
+     * which must be a single integral column. Every partition is {@link #stream(String, String, int, Consumer) streamed}
+     * over its own connection, from its own thread of a thread pool of {@code partitions} threads, which is discarded
+     * once the scan completes.
+     * <p></p>
+     * The rows are handed over to {@code sink} in chunks of at most {@code chunkSize} rows. The sink is called concurrently
+     * from the threads of all partitions and must be thread-safe. The chunks of a single partition are handed over one at a time,
+     * in the ascending order of the unique key; there is no ordering guarantee across partitions.
+     * <p></p>
+     * The function blocks until all partitions are scanned. If the scan of any partition fails (or the sink throws an exception),
+     * the remaining partitions are cancelled and the exception is rethrown. If the calling thread is interrupted,
+     * all partitions are cancelled and {@link CancellationException} is thrown.
+     * @param where the where condition. If null, all rows are matched.
+     * @param strategy how to split the table into partitions, not null.
+     * @param partitions the number of partitions scanned in parallel, 1 or greater.
+     * @param chunkSize the maximum number of rows handed over to the sink at once; also the JDBC fetch size. 1 or greater.
+     * @param sink receives the chunks of rows. Called concurrently from multiple threads, must be thread-safe.
+     * @throws UnsupportedOperationException if the rows aren't uniquely identified by a single integral column.
+     */
+    public void parallelScan(@Nullable Condition where, @NotNull PartitionStrategy strategy, int partitions, int chunkSize, @NotNull Consumer<List<T>> sink) {
+        Objects.requireNonNull(strategy, "strategy");
+        Objects.requireNonNull(sink, "sink");
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Parameter partitions: invalid value " + partitions + ": must be 1 or greater");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Parameter chunkSize: invalid value " + chunkSize + ": must be 1 or greater");
+        }
+        final List<Property<?>> uniqueKey = getUniqueKey();
+        if (uniqueKey.size() != 1 || !isIntegral(uniqueKey.get(0).getValueType())) {
+            throw new UnsupportedOperationException(entityClass.getSimpleName() + " isn't uniquely identified by a single integral column " + uniqueKey + ", can't be scanned in parallel");
+        }
+        final Property<?> key = uniqueKey.get(0);
+        final Condition condition = where == null ? Condition.NO_CONDITION : where;
+        final List<Condition> partitionConditions = strategy == PartitionStrategy.ID_RANGE
+                ? rangePartitions(condition, key, partitions) : moduloPartitions(key, partitions);
+        if (partitionConditions.isEmpty()) {
+            return;
+        }
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(partitionConditions.size(), runnable -> {
+            final Thread thread = new Thread(runnable, "jdbiorm-scan-" + meta.getDatabaseTableName() + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (Condition partitionCondition : partitionConditions) {
+                final Condition c = condition.and(partitionCondition);
+                futures.add(executor.submit(() -> {
+                    try {
+                        scanPartition(c, key, chunkSize, sink, cancelled);
+                    } catch (RuntimeException | Error e) {
+                        // cancel the other partitions as soon as possible
+                        cancelled.set(true);
+                        throw e;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The scan of " + entityClass.getSimpleName() + " has been interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            cancelled.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    private void scanPartition(@NotNull Condition condition, @NotNull Property<?> key, int chunkSize,
+                               @NotNull Consumer<List<T>> sink, @NotNull AtomicBoolean cancelled) {
+        final ParametrizedSql sql = condition == Condition.NO_CONDITION ? null : condition.toSql();
+        try (ResultIterator<T> iterator = iterator(sql == null ? null : sql.getSql92(), toSqlOrderClause(Collections.singletonList(key.asc())),
+                chunkSize, sql == null ? q -> {} : sql::bindTo)) {
+            List<T> chunk = new ArrayList<>(chunkSize);
+            while (!cancelled.get() && iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() >= chunkSize) {
+                    sink.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty() && !cancelled.get()) {
+                sink.accept(chunk);
+            }
+        }
+    }
+
+    private static boolean isIntegral(@NotNull Class<?> type) {
+        return type == Long.class || type == long.class || type == Integer.class || type == int.class
+                || type == Short.class || type == short.class || type == Byte.class || type == byte.class;
+    }
+
+    /**
+     * Probes the minimum and maximum value of the key and splits the range into at most {@code partitions} ranges.
+     * The first and the last range are open, so that the rows inserted after the probe are not missed.
+     * @return the conditions of the partitions; empty if there are no matching rows.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private List<Condition> rangePartitions(@NotNull Condition where, @NotNull Property<?> key, int partitions) {
+        final ParametrizedSql sql = where == Condition.NO_CONDITION ? null : where.toSql();
+        final String keyColumn = key.getDbName().getQualifiedName();
+        final long[] minMax = jdbi().withHandle(handle -> {
+            final Query query = handle.createQuery("select min(" + keyColumn + "), max(" + keyColumn + ") from <TABLE>" + (sql == null ? "" : " where <WHERE>"))
+                    .define("TABLE", meta.getDatabaseTableName());
+            if (sql != null) {
+                query.define("WHERE", sql.getSql92());
+                sql.bindTo(query);
+            }
+            return query.map((rs, ctx) -> {
+                final long min = rs.getLong(1);
+                return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+            }).list().get(0);
+        });
+        if (minMax == null) {
+            return Collections.emptyList();
+        }
+        final BigInteger min = BigInteger.valueOf(minMax[0]);
+        final BigInteger span = BigInteger.valueOf(minMax[1]).subtract(min).add(BigInteger.ONE);
+        final List<Long> bounds = new ArrayList<>();
+        for (int i = 1; i < partitions; i++) {
+            final long bound = min.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitions))).longValueExact();
+            if (bounds.isEmpty() ? bound > minMax[0] : bound > bounds.get(bounds.size() - 1)) {
+                bounds.add(bound);
+            }
+        }
+        final Property<Object> k = (Property<Object>) key;
+        final List<Condition> result = new ArrayList<>();
+        for (int i = 0; i <= bounds.size(); i++) {
+            Condition c = Condition.NO_CONDITION;
+            if (i > 0) {
+                c = c.and(k.ge(bounds.get(i - 1)));
+            }
+            if (i < bounds.size()) {
+                c = c.and(k.lt(bounds.get(i)));
+            }
+            result.add(c);
+        }
+        return result;
+    }
+
+    @NotNull
+    private static List<Condition> moduloPartitions(@NotNull Property<?> key, int partitions) {
+        final String keyColumn = key.getDbName().getQualifiedName();
+        final List<Condition> result = new ArrayList<>();
+        for (int i = 0; i < partitions; i++) {
+            result.add(new NativeSQL("ABS(" + keyColumn + " % " + partitions + ") = " + i, Collections.emptyMap()));
+        }
+        return result;
     }
 
     /**
@@ -500,9 +1173,12 @@ public class DaoOfAny<T> implements Serializable {
      * Deletes all rows from this database table.
      */
     public void deleteAll() {
-        jdbi().useHandle(handle -> handle.createUpdate("delete from <TABLE>")
-                .define("TABLE", meta.getDatabaseTableName())
-                .execute());
+        jdbi().useHandle(handle -> {
+            handle.createUpdate("delete from <TABLE>")
+                    .define("TABLE", meta.getDatabaseTableName())
+                    .execute();
+            RowCountCache.invalidate(handle, meta.getDatabaseTableName());
+        });
     }
 
     /**
@@ -521,21 +1197,33 @@ public class DaoOfAny<T> implements Serializable {
      */
     public long countBy(@Nullable String where, @NotNull Consumer<Query> queryConsumer) {
         Objects.requireNonNull(queryConsumer, "queryConsumer");
-        final StringBuilder sb = new StringBuilder("select count(*) from <TABLE>");
-        if (where != null) {
-            sb.append(" where <WHERE>");
-        }
         return jdbi().withHandle(handle -> {
-            final Query query = handle.createQuery(sb.toString())
-                    .define("TABLE", meta.getDatabaseTableName());
-            if (where != null) {
-                query.define("WHERE", where);
-            }
+            final Query query = createCountQuery(handle, where);
             queryConsumer.accept(query);
             return query.mapTo(Long.class).one();
         });
     }
 
+    /**
+     * Creates the query counting the matching rows, used by all counting functions.
+     * @param handle the handle to create the query with, not null.
+     * @param where the where clause, e.g. {@code name = :name}. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @return the query returning one row with one column, the count. The parameters referenced by {@code where} are not bound yet.
+     */
+    @NotNull
+    protected Query createCountQuery(@NotNull Handle handle, @Nullable String where) {
+        final StringBuilder sb = new StringBuilder("select count(*) from <TABLE>");
+        if (where != null) {
+            sb.append(" where <WHERE>");
+        }
+        final Query query = handle.createQuery(sb.toString())
+                .define("TABLE", meta.getDatabaseTableName());
+        if (where != null) {
+            query.define("WHERE", where);
+        }
+        return query;
+    }
+
     /**
      * Counts all matching rows in this table.
      * @param condition the where condition. If null, all rows are matched.
@@ -549,14 +1237,70 @@ public class DaoOfAny<T> implements Serializable {
         return countBy(sql.getSql92(), sql::bindTo);
     }
 
+    /**
+     * Returns the approximate count of matching rows, for cases where the exact count is not needed but
+     * <code>SELECT count(*)</code> would take too long, e.g. the row count shown in a data grid of a table with
+     * hundreds of millions of rows.
+     * <p></p>
+     * If the condition is null, the number of rows is read from the database statistics maintained by the query planner,
+     * via {@link Quirks#rowCountEstimate(String)}, without scanning the table. The estimate is only as fresh as the statistics
+     * (e.g. PostgreSQL updates them on <code>ANALYZE</code>/autovacuum). If the database provides no estimate,
+     * or the statistics have not been gathered yet, the rows are counted exactly.
+     * <p></p>
+     * If the condition is not null, the matching rows are counted exactly, via {@link #countBy(Condition)};
+     * consider {@link #countCached(Condition, Duration)} in such case.
+     * @param condition the where condition. If null, all rows are matched.
+     * @return the approximate count of matching rows, 0 or greater.
+     */
+    public long countEstimate(@Nullable Condition condition) {
+        if (condition != null && condition != Condition.NO_CONDITION) {
+            return countBy(condition);
+        }
+        final Long estimate = jdbi().withHandle(handle -> {
+            final String sql = Quirks.from(handle).rowCountEstimate(meta.getDatabaseTableName());
+            if (sql == null) {
+                return null;
+            }
+            final Query query = handle.createQuery(sql);
+            if (sql.contains(":table")) {
+                query.bind("table", meta.getDatabaseTableName());
+            }
+            final List<Long> rows = query.map((rs, ctx) -> {
+                final long value = Math.round(rs.getDouble(1));
+                return rs.wasNull() ? null : value;
+            }).list();
+            return rows.isEmpty() ? null : rows.get(0);
+        });
+        // PostgreSQL reports 0 or -1 for tables which haven't been analyzed yet.
+        return estimate == null || estimate <= 0 ? count() : estimate;
+    }
+
+    /**
+     * Counts the matching rows exactly, but caches the count for given time. All cached counts of the table are forgotten
+     * when the table is modified via {@link Dao}, {@link DaoOfAny} or {@link Entity}; modifications by other means
+     * (e.g. by other applications or by native SQL) show up once the cached count expires.
+     * <p></p>
+     * The cache is shared by all threads; a count computed by another thread within {@code ttl} may therefore not reflect
+     * the uncommitted changes of the transaction running in the current thread.
+     * @param condition the where condition. If null, all rows are matched.
+     * @param ttl how long the count is cached, not null, must be positive.
+     * @return count of matching rows in the table.
+     */
+    public long countCached(@Nullable Condition condition, @NotNull Duration ttl) {
+        Objects.requireNonNull(ttl, "ttl");
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Parameter ttl: invalid value " + ttl + ": must be positive");
+        }
+        final Condition c = condition == null ? Condition.NO_CONDITION : condition;
+        return RowCountCache.get(meta.getDatabaseTableName(), c, ttl, () -> countBy(c));
+    }
+
     /**
      * Checks whether there exists any row in this table.
      * @return true if the table has any row, false if the table is empty.
      */
     public boolean existsAny() {
-        return jdbi().withHandle(handle -> handle.createQuery("select count(1) from <TABLE>")
-                .define("TABLE", meta.getDatabaseTableName())
-                .mapTo(Long.class).one() > 0);
+        return exists(null, q -> {});
     }
 
     /**
@@ -568,13 +1312,47 @@ public class DaoOfAny<T> implements Serializable {
     public boolean existsBy(@NotNull String where, @NotNull Consumer<Query> queryConsumer) {
         Objects.requireNonNull(where, "where");
         Objects.requireNonNull(queryConsumer, "queryConsumer");
-        return jdbi().withHandle(handle -> {
-            final Query table = handle.createQuery("select count(1) from <TABLE> where <WHERE>")
-                    .define("TABLE", meta.getDatabaseTableName())
-                    .define("WHERE", where);
-            queryConsumer.accept(table);
-            return table.mapTo(Long.class).one() > 0;
-        });
+        return exists(where, queryConsumer);
+    }
+
+    /**
+     * Checks whether there exists any matching row, via {@link #selectExists(Handle, String, Consumer)}: the database stops at the first matching row,
+     * instead of counting all of them.
+     * @param where the where clause, e.g. {@code name = :name}. If null, all rows are matched. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param queryConsumer allows you to set parameter values etc, for example {@code q -> q.bind("customerid", customerId")}.
+     * @return true if there is any matching row.
+     */
+    protected boolean exists(@Nullable String where, @NotNull Consumer<Query> queryConsumer) {
+        final String select = "select 1 from <TABLE>" + (where == null ? "" : " where <WHERE>");
+        return jdbi().withHandle(handle -> selectExists(handle, select, query -> {
+            query.define("TABLE", meta.getDatabaseTableName());
+            if (where != null) {
+                query.define("WHERE", where);
+            }
+            queryConsumer.accept(query);
+        }));
+    }
+
+    /**
+     * Checks whether given query returns any rows. The query is wrapped via {@link Quirks#exists(String)} if the database
+     * supports that; otherwise it's limited to one row via {@link Quirks#offsetLimit(Long, Long)}.
+     * @param handle the handle to run the query with, not null.
+     * @param select the query, e.g. {@code select 1 from Person where name = :name}, not null.
+     * @param queryConsumer allows you to set parameter values etc, for example {@code q -> q.bind("customerid", customerId")}.
+     * @return true if the query returns any row.
+     */
+    protected boolean selectExists(@NotNull Handle handle, @NotNull String select, @NotNull Consumer<Query> queryConsumer) {
+        final String exists = Quirks.from(handle).exists(select);
+        if (exists != null) {
+            final Query query = handle.createQuery(exists);
+            queryConsumer.accept(query);
+            return query.mapTo(Boolean.class).one();
+        }
+        final StringBuilder sql = new StringBuilder(select);
+        appendOffsetLimit(sql, handle, null, 1L, false);
+        final Query query = handle.createQuery(sql.toString());
+        queryConsumer.accept(query);
+        return query.map((rs, ctx) -> true).findFirst().isPresent();
     }
 
     /**
@@ -598,12 +1376,13 @@ public class DaoOfAny<T> implements Serializable {
     public void deleteBy(@NotNull String where, @NotNull Consumer<Update> updateConsumer) {
         Objects.requireNonNull(where, "where");
         Objects.requireNonNull(updateConsumer, "updateConsumer");
-        jdbi().withHandle(handle -> {
+        jdbi().useHandle(handle -> {
             final Update update = handle.createUpdate("delete from <TABLE> where <WHERE>")
                     .define("TABLE", meta.getDatabaseTableName())
                     .define("WHERE", where);
             updateConsumer.accept(update);
-            return update.execute();
+            update.execute();
+            RowCountCache.invalidate(handle, meta.getDatabaseTableName());
         });
     }
 
@@ -620,6 +1399,65 @@ public class DaoOfAny<T> implements Serializable {
         }
     }
 
+    /**
+     * Updates rows matching given where clause, in one <code>UPDATE</code> statement, without loading the rows.
+     * @param set the SET clause, e.g. {@code status = :status}. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param where the where clause, e.g. {@code name = :name}. If null, all rows are updated. Careful: this goes into the SQL as-is - could be misused for SQL injection!
+     * @param updateConsumer allows you to set parameter values etc, for example {@code q -> q.bind("customerid", customerId")}.
+     * @return the number of updated rows.
+     */
+    public int updateBy(@NotNull String set, @Nullable String where, @NotNull Consumer<Update> updateConsumer) {
+        Objects.requireNonNull(set, "set");
+        Objects.requireNonNull(updateConsumer, "updateConsumer");
+        final StringBuilder sb = new StringBuilder("update <TABLE> set <SET>");
+        if (where != null) {
+            sb.append(" where <WHERE>");
+        }
+        return jdbi().withHandle(handle -> {
+            final Update update = handle.createUpdate(sb.toString())
+                    .define("TABLE", meta.getDatabaseTableName())
+                    .define("SET", set);
+            if (where != null) {
+                update.define("WHERE", where);
+            }
+            updateConsumer.accept(update);
+            final int updated = update.execute();
+            RowCountCache.invalidate(handle, meta.getDatabaseTableName());
+            return updated;
+        });
+    }
+
+    /**
+     * Updates rows matching given condition, in one <code>UPDATE</code> statement, without loading the rows. The new values are
+     * computed by the database, therefore any expression may be assigned, for example:
+     * <code><pre>
+     * Person.dao.updateBy(Person.AGE.isNull(), Map.of(Person.AGE, new Expression.Value&lt;&gt;(0), Person.NAME, Person.NAME.lower()));
+     * </pre></code>
+     * Note that the entities are bypassed: neither validation nor the {@link Version} checks are performed.
+     * @param where the where condition. If null, all rows are updated.
+     * @param set maps the columns to update to their new values, not empty.
+     * @return the number of updated rows.
+     */
+    public int updateBy(@Nullable Condition where, @NotNull Map<Property<?>, Expression<?>> set) {
+        Objects.requireNonNull(set, "set");
+        if (set.isEmpty()) {
+            throw new IllegalArgumentException("Parameter set: invalid value " + set + ": must not be empty");
+        }
+        final List<String> assignments = new ArrayList<>(set.size());
+        final Map<String, Object> parameters = new HashMap<>();
+        for (Map.Entry<Property<?>, Expression<?>> assignment : set.entrySet()) {
+            final ParametrizedSql value = Objects.requireNonNull(assignment.getValue(), "set must not contain null values").toSql();
+            assignments.add(assignment.getKey().getDbName().getUnqualifiedName() + " = " + value.getSql92());
+            parameters.putAll(value.getSql92Parameters());
+        }
+        final ParametrizedSql whereSql = where == null || where == Condition.NO_CONDITION ? null : where.toSql();
+        if (whereSql != null) {
+            parameters.putAll(whereSql.getSql92Parameters());
+        }
+        final ParametrizedSql sql = new ParametrizedSql(String.join(", ", assignments), parameters);
+        return updateBy(sql.getSql92(), whereSql == null ? null : whereSql.getSql92(), sql::bindTo);
+    }
+
     /**
      * Helper functions for {@link DaoOfAny}.
      * <p></p>
@@ -703,7 +1541,7 @@ public class DaoOfAny<T> implements Serializable {
         final StringBuilder sql = new StringBuilder("select <FIELDS> from <TABLE>");
         jdbi().withHandle(handle -> {
                     final Query query = handle.createQuery(sql.toString())
-                            .define("FIELDS", meta.getPersistedFieldDbNames().stream().map(Property.DbName::getQualifiedName).collect(Collectors.joining(", ")))
+                            .define("FIELDS", meta.getSelectFields())
                             .define("TABLE", meta.getDatabaseTableName());
                     final List<Map<String, Object>> result = query
                             .map(new MapMapper())
@@ -1,15 +1,19 @@
 package com.gitlab.mvysny.jdbiorm;
 
+import com.gitlab.mvysny.jdbiorm.condition.Condition;
 import org.intellij.lang.annotations.Language;
-import org.jdbi.v3.core.result.ResultIterable;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.statement.Query;
 import org.jdbi.v3.core.statement.Update;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
-import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.gitlab.mvysny.jdbiorm.JdbiOrm.jdbi;
 
@@ -29,6 +33,22 @@ public class DaoOfJoin<T> extends DaoOfAny<T> {
     @NotNull
     private final String sql;
 
+    /**
+     * Matches the beginning of the SQL statement, up to the first selected column.
+     */
+    private static final Pattern SELECT = Pattern.compile("\\s*select\\s+(distinct\\s+)?", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Matches the FROM keyword.
+     */
+    private static final Pattern FROM = Pattern.compile("from\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The statement counting the rows, with the <code>&lt;WHERE_CLAUSE&gt;</code> placeholder for the WHERE stanza.
+     */
+    @NotNull
+    private final String countSql;
+
     /**
      * Creates the DAO.
      * @param pojoClass the class of Java POJO to which the result will be mapped. The class doesn't need to implement anything, not even Serializable.
@@ -38,36 +58,146 @@ public class DaoOfJoin<T> extends DaoOfAny<T> {
      * @param sql the part of the SQL statement which may be appended with WHERE / ORDER BY / OFFSET / LIMIT stanzas.
      */
     public DaoOfJoin(@NotNull Class<T> pojoClass, @NotNull @Language("sql") String sql) {
+        this(pojoClass, sql, CountStrategy.WRAP);
+    }
+
+    /**
+     * Creates the DAO.
+     * @param pojoClass the class of Java POJO to which the result will be mapped, see {@link #DaoOfJoin(Class, String)} for details.
+     * @param sql the part of the SQL statement which may be appended with WHERE / ORDER BY / OFFSET / LIMIT stanzas.
+     * @param countStrategy how the rows are counted by {@link #countBy(String, Consumer)} and the other counting functions.
+     * @throws IllegalArgumentException if the count can't be derived from given SQL statement via {@link CountStrategy#SELECT_ONE}.
+     */
+    public DaoOfJoin(@NotNull Class<T> pojoClass, @NotNull @Language("sql") String sql, @NotNull CountStrategy countStrategy) {
         super(pojoClass);
         this.sql = Objects.requireNonNull(sql);
+        Objects.requireNonNull(countStrategy, "countStrategy");
+        if (countStrategy == CountStrategy.SELECT_ONE) {
+            this.countSql = "SELECT count(*) FROM (SELECT 1 " + fromClause(sql) + "<WHERE_CLAUSE>) AS Foo";
+        } else {
+            // previously, the count was obtained by a dirty trick - the ResultSet was simply scrolled to the last line and the row number is obtained.
+            // however, PostgreSQL doesn't seem to like this: https://github.com/mvysny/vaadin-on-kotlin/issues/19
+            // anyway there is a better way: simply wrap the select with "SELECT count(*) FROM (select)"
+            // subquery in FROM must have an alias
+            this.countSql = "SELECT count(*) FROM (" + sql + "<WHERE_CLAUSE>) AS Foo";
+        }
     }
 
-    @Override
-    protected <R> R findAllBy(@Nullable String where, @Nullable String orderBy, @Nullable Long offset, @Nullable Long limit, @NotNull Consumer<Query> queryConsumer, @NotNull Function<ResultIterable<T>, R> iterableMapper, @Nullable R empty) {
-        Objects.requireNonNull(queryConsumer, "queryConsumer");
-        if (limit != null && limit == 0L) {
-            return empty;
+    /**
+     * Creates the DAO which counts the rows via given SQL statement.
+     * @param pojoClass the class of Java POJO to which the result will be mapped, see {@link #DaoOfJoin(Class, String)} for details.
+     * @param sql the part of the SQL statement which may be appended with WHERE / ORDER BY / OFFSET / LIMIT stanzas.
+     * @param countSql the SQL statement counting the rows of {@code sql}, which may be appended with the WHERE stanza, e.g.
+     *                 <code>select count(*) FROM Test join mapping_table m on Test.id = m.person_id</code>. It must use the
+     *                 same table aliases as {@code sql}, since the same conditions are applied. Typically it omits the joins
+     *                 which don't affect the number of rows, such as many-to-one joins of tables referenced by the select list only.
+     */
+    public DaoOfJoin(@NotNull Class<T> pojoClass, @NotNull @Language("sql") String sql, @NotNull @Language("sql") String countSql) {
+        super(pojoClass);
+        this.sql = Objects.requireNonNull(sql);
+        this.countSql = Objects.requireNonNull(countSql, "countSql") + "<WHERE_CLAUSE>";
+    }
+
+    /**
+     * Determines how the rows of a {@link DaoOfJoin} are counted.
+     */
+    public enum CountStrategy {
+        /**
+         * The SQL statement is wrapped as-is, <code>SELECT count(*) FROM (sql WHERE ...) AS Foo</code>. This works for any
+         * SQL statement, but the database may still evaluate all of the selected columns. The default.
+         */
+        WRAP,
+        /**
+         * The select list of the SQL statement is replaced by <code>1</code>, <code>SELECT count(*) FROM (SELECT 1 FROM ... WHERE ...) AS Foo</code>,
+         * so that the database doesn't need to evaluate the selected columns, e.g. correlated subqueries and function calls.
+         * <p></p>
+         * Not supported for <code>SELECT DISTINCT</code>, since the number of distinct rows depends on the selected columns.
+         * Also, must not be used if the select list contains aggregate functions while the statement has no <code>GROUP BY</code>
+         * clause: such statement returns one row, while <code>SELECT 1</code> would return a row per every joined row.
+         */
+        SELECT_ONE
+    }
+
+    /**
+     * Returns the part of given SQL statement following the select list, so that the select list can be replaced.
+     * @param sql the SQL statement, starting with <code>SELECT</code>.
+     * @return <code>FROM ...</code>
+     * @throws IllegalArgumentException if the SQL statement has no FROM clause, or selects distinct rows.
+     */
+    @NotNull
+    private static String fromClause(@NotNull String sql) {
+        final Matcher matcher = SELECT.matcher(sql);
+        if (!matcher.lookingAt()) {
+            throw new IllegalArgumentException("Parameter sql: invalid value " + sql + ": the SQL statement doesn't start with SELECT");
         }
+        if (matcher.group(1) != null) {
+            throw new IllegalArgumentException("Parameter sql: invalid value " + sql + ": the select list of SELECT DISTINCT affects the number of rows");
+        }
+        // look for the FROM keyword outside of parentheses (subqueries, function calls), string literals and quoted identifiers.
+        int depth = 0;
+        for (int i = matcher.end(); i < sql.length(); i++) {
+            final char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                final int end = sql.indexOf(c, i + 1);
+                if (end < 0) {
+                    break;
+                }
+                i = end;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && FROM.matcher(sql).region(i, sql.length()).lookingAt()
+                    && !Character.isJavaIdentifierPart(sql.charAt(i - 1))) {
+                return sql.substring(i);
+            }
+        }
+        throw new IllegalArgumentException("Parameter sql: invalid value " + sql + ": the SQL statement has no FROM clause");
+    }
+
+    @Override
+    @NotNull
+    protected Query createFindQuery(@NotNull Handle handle, @Nullable String extraColumns, @Nullable String where, @Nullable String orderBy, @Nullable Long offset, @Nullable Long limit) {
         final StringBuilder sql = new StringBuilder(this.sql);
+        if (extraColumns != null) {
+            final Matcher matcher = SELECT.matcher(sql);
+            if (!matcher.lookingAt()) {
+                throw new IllegalStateException("Invalid state: " + this + ": the SQL statement doesn't start with SELECT");
+            }
+            sql.insert(matcher.end(), extraColumns + ", ");
+        }
         if (where != null) {
             sql.append(" WHERE <WHERE>");
         }
         if (orderBy != null) {
             sql.append(" ORDER BY ").append(orderBy);
         }
-        checkOffsetLimit(offset, limit);
-        return jdbi().withHandle(handle -> {
-                    appendOffsetLimit(sql, handle, offset, limit, orderBy != null);
-                    final Query query = handle.createQuery(sql.toString());
-                    if (where != null) {
-                        query.define("WHERE", where);
-                    }
-                    queryConsumer.accept(query);
-                    final ResultIterable<T> resultIterable = query
-                            .map(getRowMapper());
-                    return iterableMapper.apply(resultIterable);
-                }
-        );
+        appendOffsetLimit(sql, handle, offset, limit, orderBy != null);
+        final Query query = handle.createQuery(sql.toString());
+        if (where != null) {
+            query.define("WHERE", where);
+        }
+        return query;
+    }
+
+    /**
+     * A join has no primary key, therefore {@link #findPageAfter(com.gitlab.mvysny.jdbiorm.condition.Condition, java.util.List, String, long)}
+     * requires the ordering to identify the rows uniquely, e.g. by including the IDs of all joined tables.
+     * @return an empty list.
+     */
+    @Override
+    @NotNull
+    protected List<Property<?>> getUniqueKey() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Not supported: the columns are selected by the SQL statement passed to the constructor.
+     */
+    @Override
+    @NotNull
+    protected Query createProjectionQuery(@NotNull Handle handle, @NotNull String columns, @Nullable String where, @Nullable String orderBy, @Nullable Long offset, @Nullable Long limit) {
+        throw new UnsupportedOperationException("DaoOfJoin doesn't support projections");
     }
 
     @Override
@@ -76,35 +206,57 @@ public class DaoOfJoin<T> extends DaoOfAny<T> {
     }
 
     @Override
-    public long countBy(@Nullable String where, @NotNull Consumer<Query> queryConsumer) {
-        final StringBuilder sb = new StringBuilder(this.sql);
-        if (where != null) {
-            sb.append(" WHERE <WHERE>");
+    @NotNull
+    protected Query createCountQuery(@NotNull Handle handle, @Nullable String where) {
+        return handle.createQuery(countSql)
+                .define("WHERE_CLAUSE", where == null ? "" : " WHERE " + where)
+                .define("TABLE", meta.getDatabaseTableName());
+    }
+
+    /**
+     * The part of the SQL statement following the select list, so that the aggregates are calculated over the joined rows.
+     * @return <code>FROM ...</code>, not null.
+     * @throws UnsupportedOperationException if the SQL statement has no FROM clause, or selects distinct rows.
+     */
+    @Override
+    @NotNull
+    protected String getFromClause() {
+        try {
+            return fromClause(sql);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedOperationException("DaoOfJoin " + this + " doesn't support aggregates: " + e.getMessage(), e);
         }
-        // previously, the count was obtained by a dirty trick - the ResultSet was simply scrolled to the last line and the row number is obtained.
-        // however, PostgreSQL doesn't seem to like this: https://github.com/mvysny/vaadin-on-kotlin/issues/19
-        // anyway there is a better way: simply wrap the select with "SELECT count(*) FROM (select)"
-        // subquery in FROM must have an alias
-        final String sql = "SELECT count(*) FROM (" + sb + ") AS Foo";
-        return jdbi().withHandle(handle -> {
-            final Query query = handle.createQuery(sql)
-                    .define("TABLE", meta.getDatabaseTableName());
-            if (where != null) {
-                query.define("WHERE", where);
-            }
-            queryConsumer.accept(query);
-            return query.mapTo(Long.class).one();
-        });
     }
 
+    /**
+     * <code>COUNT(*) OVER()</code> is evaluated before <code>SELECT DISTINCT</code> removes the duplicate rows,
+     * and would therefore count the duplicates too.
+     * @return false if the SQL statement selects distinct rows.
+     */
+    @Override
+    protected boolean supportsCountOver() {
+        final Matcher matcher = SELECT.matcher(sql);
+        return !matcher.lookingAt() || matcher.group(1) == null;
+    }
+
+    /**
+     * Counts the matching rows exactly: there are no planner statistics for a join.
+     */
     @Override
-    public boolean existsAny() {
-        return count() > 0;
+    public long countEstimate(@Nullable Condition condition) {
+        return countBy(condition);
     }
 
     @Override
-    public boolean existsBy(@NotNull String where, @NotNull Consumer<Query> queryConsumer) {
-        return countBy(where, queryConsumer) > 0;
+    protected boolean exists(@Nullable String where, @NotNull Consumer<Query> queryConsumer) {
+        final String select = where == null ? this.sql : this.sql + " WHERE <WHERE>";
+        return jdbi().withHandle(handle -> selectExists(handle, select, query -> {
+            query.define("TABLE", meta.getDatabaseTableName());
+            if (where != null) {
+                query.define("WHERE", where);
+            }
+            queryConsumer.accept(query);
+        }));
     }
 
     @Override
@@ -112,6 +264,11 @@ public class DaoOfJoin<T> extends DaoOfAny<T> {
         throw new UnsupportedOperationException("DaoOfJoin doesn't support deletion by default");
     }
 
+    @Override
+    public int updateBy(@NotNull String set, @Nullable String where, @NotNull Consumer<Update> updateConsumer) {
+        throw new UnsupportedOperationException("DaoOfJoin doesn't support updates by default");
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" + entityClass.getSimpleName() + ": '" + sql + "'}";
@@ -0,0 +1,26 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opt-in dirty tracking for an entity. By default the entities do not track modifications and
+ * {@link Entity#save()} always updates all columns of the row.
+ * <p></p>
+ * When the entity class is annotated with this annotation, a snapshot of all persisted property values is taken
+ * whenever the entity is loaded from the database (via {@link com.gitlab.mvysny.jdbiorm.jdbi.FieldMapper}
+ * or {@link Entity#reload()}) and after it has been successfully stored. {@link Entity#save()} then
+ * only updates the columns which have changed since the snapshot was taken, and skips the database round-trip
+ * altogether if nothing has changed.
+ * <p></p>
+ * Note that the snapshot is not taken when the entity is populated in any other way; in such case
+ * {@link Entity#save()} simply updates all columns. See {@link EntityMeta#getDirtyProperties(Object)} for details.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface DirtyTracking {
+}
@@ -1,9 +1,18 @@
 package com.gitlab.mvysny.jdbiorm;
 
 import com.gitlab.mvysny.jdbiorm.spi.AbstractEntity;
+import com.gitlab.mvysny.jdbiorm.quirks.Quirks;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.annotation.JdbiProperty;
 import org.jdbi.v3.core.mapper.Nested;
+import org.jdbi.v3.core.mapper.ColumnMapper;
+import org.jdbi.v3.core.qualifier.QualifiedType;
+import org.jdbi.v3.core.qualifier.Qualifiers;
+import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.core.result.ResultBearing;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.core.statement.Query;
+import org.jdbi.v3.core.statement.SqlStatement;
 import org.jdbi.v3.core.statement.Update;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -15,10 +24,17 @@ import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.sql.Statement;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -42,12 +58,23 @@ public final class EntityMeta<E> implements Serializable {
     public final Class<E> entityClass;
 
     /**
-     * Caches the <code>setId()</code> {@link Method} for given entity class. Used by {@link #setId(Object, Object)}.
+     * Caches the <code>setId()</code> {@link Method} for given entity class, of type <code>(Object, Object)void</code>.
+     * Used by {@link #setId(Object, Object)}.
      */
     @Nullable
-    private final Method setIdMethod;
+    private final MethodHandle setIdMethod;
+    /**
+     * Caches the <code>getId()</code> {@link Method} for given entity class, of type <code>(Object)Object</code>.
+     * Used by {@link #getId(Object)}.
+     */
+    @Nullable
+    private final MethodHandle getIdMethod;
+    /**
+     * Caches the no-arg constructor, of type <code>()Object</code>. Used by {@link #newEntityInstance()}. Null if
+     * the entity can not be instantiated via a public no-arg constructor.
+     */
     @Nullable
-    private final Method getIdMethod;
+    private final MethodHandle constructor;
 
     @NotNull
     private final EntityProperties entityProperties;
@@ -64,23 +91,88 @@ public final class EntityMeta<E> implements Serializable {
     private EntityMeta(@NotNull Class<E> entityClass) {
         this.entityClass = Objects.requireNonNull(entityClass, "entityClass");
 
-        setIdMethod = Arrays.stream(entityClass.getMethods()).filter(it -> it.getName().equals("setId"))
-                .findFirst().orElse(null);
-        getIdMethod = Arrays.stream(entityClass.getMethods()).filter(it -> it.getName().equals("getId"))
-                .findFirst().orElse(null);
+        setIdMethod = unreflect(Arrays.stream(entityClass.getMethods()).filter(it -> it.getName().equals("setId"))
+                .findFirst().orElse(null), MethodType.methodType(void.class, Object.class, Object.class));
+        getIdMethod = unreflect(Arrays.stream(entityClass.getMethods()).filter(it -> it.getName().equals("getId"))
+                .findFirst().orElse(null), MethodType.methodType(Object.class, Object.class));
+        MethodHandle constructor;
+        try {
+            final Constructor<E> c = entityClass.getConstructor();
+            c.setAccessible(true);
+            constructor = MethodHandles.lookup().unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // e.g. no public no-arg constructor, or an abstract class: newEntityInstance() fails.
+            constructor = null;
+        }
+        this.constructor = constructor;
 
-        final HashSet<PropertyMeta> metas = new HashSet<>();
+        final LinkedHashSet<PropertyMeta> metas = new LinkedHashSet<>();
         visitAllPersistedFields(entityClass, Collections.emptyList(), fields -> metas.add(new PropertyMeta(entityClass, fields)));
         entityProperties = new EntityProperties(metas);
 
         idProperty = getProperties().stream()
                 .filter(it -> it.getNamePath().get(0).equals("id")).collect(Collectors.toUnmodifiableList());
+        final List<PropertyMeta> versionProperties = getProperties().stream()
+                .filter(it -> it.getAnnotation(Version.class) != null).collect(Collectors.toList());
+        if (versionProperties.size() > 1) {
+            throw new IllegalArgumentException("Parameter entityClass: invalid value " + entityClass + ": at most one field may be annotated with @Version but got " + versionProperties);
+        }
+        versionProperty = versionProperties.isEmpty() ? null : versionProperties.get(0);
+        if (versionProperty != null) {
+            final Class<?> type = versionProperty.getValueType();
+            if (type != int.class && type != Integer.class && type != long.class && type != Long.class) {
+                throw new IllegalArgumentException("Parameter entityClass: invalid value " + entityClass + ": the @Version field " + versionProperty.getName() + " must be of type int, long, Integer or Long but is " + type);
+            }
+            if (idProperty.contains(versionProperty)) {
+                throw new IllegalArgumentException("Parameter entityClass: invalid value " + entityClass + ": the ID must not be annotated with @Version");
+            }
+        }
+        generatedProperties = getProperties().stream()
+                .filter(it -> it.getAnnotation(Generated.class) != null).collect(Collectors.toUnmodifiableList());
+        for (PropertyMeta generatedProperty : generatedProperties) {
+            if (idProperty.contains(generatedProperty) || generatedProperty.equals(versionProperty)) {
+                throw new IllegalArgumentException("Parameter entityClass: invalid value " + entityClass + ": " + generatedProperty.getName()
+                        + " must not be annotated with @Generated: the ID is generated by the database when it's null, and the version is maintained by jdbi-orm");
+            }
+        }
 
         final Table annotation = findAnnotationRecursively(entityClass, Table.class);
         final String name = annotation == null ? null : annotation.value();
         databaseTableName = name == null || name.trim().isEmpty() ? entityClass.getSimpleName() : name;
+        dirtyTracking = entityClass.isAnnotationPresent(DirtyTracking.class);
+    }
+
+    @Nullable
+    private static MethodHandle unreflect(@Nullable Method method, @NotNull MethodType type) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            // the method is public, but the class may not be.
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
     }
 
+    /**
+     * Cached value of {@link #getVersionProperty()}.
+     */
+    @Nullable
+    private final PropertyMeta versionProperty;
+
+    /**
+     * Cached value of {@link #getGeneratedProperties()}.
+     */
+    @NotNull
+    private final List<PropertyMeta> generatedProperties;
+
+    /**
+     * Cached value of {@link #isDirtyTracking()}.
+     */
+    private final boolean dirtyTracking;
+
     /**
      * Cached value of {@link #getDatabaseTableName()}.
      */
@@ -111,11 +203,20 @@ public final class EntityMeta<E> implements Serializable {
         return databaseTableName;
     }
 
+    /**
+     * Whether the entity class is annotated with {@link DirtyTracking}.
+     * @return true if the entity tracks modifications and {@link #defaultSave(Object)} only updates modified columns.
+     */
+    public boolean isDirtyTracking() {
+        return dirtyTracking;
+    }
+
     /**
      * Lists all properties in this entity. Only lists persisted properties:
      * non-transient non-static fields not annotated with {@link JdbiProperty}(map = false).
      * <p></p>
-     * Also includes the id property/properties.
+     * Also includes the id property/properties. The iteration order is stable: the order in which the
+     * fields are declared, the fields of the entity class first, then the fields of its superclass.
      */
     @NotNull
     public Set<PropertyMeta> getProperties() {
@@ -128,7 +229,17 @@ public final class EntityMeta<E> implements Serializable {
      */
     @NotNull
     public Set<Property.DbName> getPersistedFieldDbNames() {
-        return getProperties().stream().map(PropertyMeta::getDbName).collect(Collectors.toSet());
+        return getStatementPlans().persistedFieldDbNames;
+    }
+
+    /**
+     * Comma-separated {@link Property.DbName#getQualifiedName() qualified names} of all {@link #getPersistedFieldDbNames() persisted fields},
+     * to be used in the SELECT clause, e.g. <code>Person.id, Person.name</code>.
+     * @return the SELECT clause fields, not null.
+     */
+    @NotNull
+    public String getSelectFields() {
+        return getStatementPlans().selectFields;
     }
 
     public boolean hasIdProperty() {
@@ -147,6 +258,26 @@ public final class EntityMeta<E> implements Serializable {
         return idProperty;
     }
 
+    /**
+     * The property annotated with {@link Version}, used for optimistic locking.
+     * @return the version property, or null if the entity is not versioned.
+     */
+    @Nullable
+    public PropertyMeta getVersionProperty() {
+        return versionProperty;
+    }
+
+    /**
+     * The properties annotated with {@link Generated}. Their values are computed by the database: they are never written
+     * by INSERT and UPDATE statements, instead they are fetched back into the entity by {@link #defaultCreate(Object)}
+     * and {@link #defaultSave(Object)}.
+     * @return the generated properties, in declaration order, not null, may be empty. Unmodifiable.
+     */
+    @NotNull
+    public List<PropertyMeta> getGeneratedProperties() {
+        return generatedProperties;
+    }
+
     /**
      * Returns true if this entity has a composite key (the `id` field is annotated with {@link org.jdbi.v3.core.mapper.Nested}
      * and the referencing class has multiple fields).
@@ -207,6 +338,426 @@ public final class EntityMeta<E> implements Serializable {
         return entityProperties.findByName(propertyName);
     }
 
+    /**
+     * A SQL statement pre-computed for an entity. The SQL references its parameters positionally via <code>?</code>;
+     * {@link #getParameters()} lists the properties whose values are bound to those parameters, in order.
+     * <p></p>
+     * Immutable, thread-safe.
+     */
+    public static final class StatementPlan {
+        @NotNull
+        private final String sql;
+        @NotNull
+        private final List<PropertyMeta> parameters;
+
+        StatementPlan(@NotNull String sql, @NotNull List<PropertyMeta> parameters) {
+            this.sql = Objects.requireNonNull(sql);
+            this.parameters = List.copyOf(parameters);
+        }
+
+        /**
+         * @return the SQL statement, referencing the parameters positionally. Not null.
+         */
+        @NotNull
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return the properties whose values are bound to the positional parameters, in order. Unmodifiable.
+         */
+        @NotNull
+        public List<PropertyMeta> getParameters() {
+            return parameters;
+        }
+
+        /**
+         * Reads the values of all {@link #getParameters()} from given entity and binds them to given statement.
+         * @param statement the statement created from {@link #getSql()}, not null.
+         * @param entity the entity to read the values from, not null.
+         */
+        public void bind(@NotNull SqlStatement<?> statement, @NotNull Object entity) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.bind(i, parameters.get(i).get(entity));
+            }
+        }
+
+        /**
+         * Binds given values to given statement.
+         * @param statement the statement created from {@link #getSql()}, not null.
+         * @param values the values, one per each of {@link #getParameters()}, in order.
+         */
+        public void bindValues(@NotNull SqlStatement<?> statement, @NotNull List<?> values) {
+            if (values.size() != parameters.size()) {
+                throw new IllegalArgumentException("Parameter values: invalid value " + values + ": expected " + parameters.size() + " values");
+            }
+            for (int i = 0; i < values.size(); i++) {
+                statement.bind(i, values.get(i));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "StatementPlan{" + sql + ", " + parameters + '}';
+        }
+    }
+
+    /**
+     * All SQL statements pre-computed for this entity. Immutable, thread-safe.
+     */
+    private static final class StatementPlans {
+        /**
+         * All persisted properties; the index in this list is the property ordinal, used by the snapshots.
+         */
+        @NotNull
+        private final List<PropertyMeta> properties;
+        @NotNull
+        private final Set<Property.DbName> persistedFieldDbNames;
+        @NotNull
+        private final String selectFields;
+        /**
+         * The following plans are null if the entity has no ID.
+         */
+        @Nullable
+        private final StatementPlan selectById;
+        @Nullable
+        private final StatementPlan existsById;
+        @Nullable
+        private final StatementPlan deleteById;
+        @Nullable
+        private final StatementPlan insert;
+        @Nullable
+        private final StatementPlan insertWithoutId;
+        @Nullable
+        private final StatementPlan update;
+        /**
+         * The upsert plans, computed lazily since they depend on the database: maps the {@link Quirks} class to the plan.
+         */
+        @NotNull
+        private final ConcurrentMap<Class<?>, StatementPlan> upserts = new ConcurrentHashMap<>();
+
+        StatementPlans(@NotNull EntityMeta<?> meta) {
+            properties = List.copyOf(meta.getProperties());
+            final Set<Property.DbName> dbNames = new LinkedHashSet<>();
+            for (PropertyMeta property : properties) {
+                dbNames.add(property.getDbName());
+            }
+            persistedFieldDbNames = Collections.unmodifiableSet(dbNames);
+            selectFields = persistedFieldDbNames.stream().map(Property.DbName::getQualifiedName).collect(Collectors.joining(", "));
+            final String table = meta.getDatabaseTableName();
+            if (!meta.hasIdProperty()) {
+                selectById = null;
+                existsById = null;
+                deleteById = null;
+                insert = null;
+                insertWithoutId = null;
+                update = null;
+                return;
+            }
+            final List<PropertyMeta> idProperties = meta.getIdProperty();
+            // the generated columns are never written.
+            final List<PropertyMeta> writtenProperties = new ArrayList<>(properties);
+            writtenProperties.removeAll(meta.getGeneratedProperties());
+            final List<PropertyMeta> nonIdProperties = new ArrayList<>(writtenProperties);
+            nonIdProperties.removeAll(idProperties);
+            final String whereId = whereId(idProperties);
+
+            selectById = new StatementPlan("select " + columnList(properties) + " from " + table + " where " + whereId, idProperties);
+            existsById = new StatementPlan("select 1 from " + table + " where " + whereId, idProperties);
+            deleteById = new StatementPlan("delete from " + table + " where " + whereId, idProperties);
+            insert = insert(table, writtenProperties);
+            insertWithoutId = insert(table, nonIdProperties);
+            update = update(table, nonIdProperties, idProperties, meta.getVersionProperty());
+        }
+
+        @NotNull
+        private static String whereId(@NotNull List<PropertyMeta> idProperties) {
+            return idProperties.stream().map(it -> it.getDbName().getUnqualifiedName() + " = ?").collect(Collectors.joining(" AND "));
+        }
+
+        /**
+         * Produces the UPDATE statement. If the entity is versioned, the version is incremented by the database and is
+         * compared with the version of the entity: <code>update T set name = ?, version = version + 1 where id = ? AND version = ?</code>.
+         */
+        @NotNull
+        private static StatementPlan update(@NotNull String table, @NotNull List<PropertyMeta> properties, @NotNull List<PropertyMeta> idProperties,
+                                            @Nullable PropertyMeta versionProperty) {
+            final List<PropertyMeta> set = new ArrayList<>(properties);
+            set.remove(versionProperty);
+            final List<PropertyMeta> parameters = new ArrayList<>(set);
+            parameters.addAll(idProperties);
+            final List<String> assignments = set.stream().map(it -> it.getDbName().getUnqualifiedName() + " = ?").collect(Collectors.toList());
+            String where = whereId(idProperties);
+            if (versionProperty != null) {
+                final String version = versionProperty.getDbName().getUnqualifiedName();
+                assignments.add(version + " = " + version + " + 1");
+                where += " AND " + version + " = ?";
+                parameters.add(versionProperty);
+            }
+            return new StatementPlan("update " + table + " set " + String.join(", ", assignments) + " where " + where, parameters);
+        }
+
+        @NotNull
+        private static String columnList(@NotNull List<PropertyMeta> properties) {
+            return properties.stream().map(it -> it.getDbName().getUnqualifiedName()).collect(Collectors.joining(", "));
+        }
+
+        @NotNull
+        private static StatementPlan insert(@NotNull String table, @NotNull List<PropertyMeta> properties) {
+            return new StatementPlan("insert into " + table + " (" + columnList(properties) + ") values ("
+                    + properties.stream().map(it -> "?").collect(Collectors.joining(", ")) + ")", properties);
+        }
+    }
+
+    /**
+     * Cached value of {@link #getStatementPlans()}. Computed lazily: the plans need {@link PropertyMeta#getDbName()}
+     * which needs the {@link #of(Class) cached} instance of this class.
+     */
+    @Nullable
+    private volatile StatementPlans statementPlans;
+
+    @NotNull
+    private StatementPlans getStatementPlans() {
+        StatementPlans result = statementPlans;
+        if (result == null) {
+            result = new StatementPlans(this);
+            statementPlans = result;
+        }
+        return result;
+    }
+
+    @NotNull
+    private StatementPlan requirePlan(@Nullable StatementPlan plan) {
+        getIdProperty(); // fails with a proper message if there is no ID
+        return Objects.requireNonNull(plan);
+    }
+
+    /**
+     * The SELECT statement which fetches all persisted fields of a row with given ID.
+     * The parameters are the {@link #getIdProperty() ID properties}.
+     * @return the statement plan, not null.
+     * @throws IllegalStateException if the entity has no ID.
+     */
+    @NotNull
+    public StatementPlan getSelectByIdPlan() {
+        return requirePlan(getStatementPlans().selectById);
+    }
+
+    /**
+     * The SELECT statement which selects <code>1</code> for the row with given ID; to be wrapped via
+     * {@link Quirks#exists(String)} or limited to one row. The parameters are the {@link #getIdProperty() ID properties}.
+     * @return the statement plan, not null.
+     * @throws IllegalStateException if the entity has no ID.
+     */
+    @NotNull
+    public StatementPlan getExistsByIdPlan() {
+        return requirePlan(getStatementPlans().existsById);
+    }
+
+    /**
+     * The DELETE statement which deletes a row with given ID.
+     * The parameters are the {@link #getIdProperty() ID properties}.
+     * @return the statement plan, not null.
+     * @throws IllegalStateException if the entity has no ID.
+     */
+    @NotNull
+    public StatementPlan getDeleteByIdPlan() {
+        return requirePlan(getStatementPlans().deleteById);
+    }
+
+    /**
+     * The INSERT statement which inserts a new row. The {@link #getGeneratedProperties() generated columns} are omitted.
+     * @param includeId if false, the ID is auto-generated by the database and is not included in the INSERT statement.
+     * @return the statement plan, not null.
+     * @throws IllegalStateException if the entity has no ID.
+     */
+    @NotNull
+    public StatementPlan getInsertPlan(boolean includeId) {
+        return requirePlan(includeId ? getStatementPlans().insert : getStatementPlans().insertWithoutId);
+    }
+
+    /**
+     * The statement which inserts a new row or updates the existing row with the same ID, see {@link Quirks#upsert(String, List, List)}.
+     * The parameters are all {@link #getProperties() properties}.
+     * @param quirks the quirks of the database, not null.
+     * @return the statement plan, not null.
+     * @throws IllegalStateException if the entity has no ID.
+     */
+    @NotNull
+    public StatementPlan getUpsertPlan(@NotNull Quirks quirks) {
+        Objects.requireNonNull(quirks, "quirks");
+        final List<PropertyMeta> properties = getInsertPlan(true).getParameters();
+        // the upsert SQL only depends on the Quirks implementation, not on the instance.
+        return getStatementPlans().upserts.computeIfAbsent(quirks.getClass(), it -> {
+            final String sql = quirks.upsert(getDatabaseTableName(),
+                    properties.stream().map(p -> p.getDbName().getUnqualifiedName()).collect(Collectors.toList()),
+                    getIdProperty().stream().map(p -> p.getDbName().getUnqualifiedName()).collect(Collectors.toList()));
+            return new StatementPlan(sql, properties);
+        });
+    }
+
+    /**
+     * The UPDATE statement which updates all non-ID columns of a row with given ID.
+     * The parameters are all non-ID properties except the {@link #getGeneratedProperties() generated ones},
+     * followed by the {@link #getIdProperty() ID properties}.
+     * <p></p>
+     * If the entity has a {@link #getVersionProperty() version}, the version column isn't assigned but incremented
+     * by the database, and is compared to the version of the entity in the WHERE clause: the version property is the last parameter.
+     * @return the statement plan, not null.
+     * @throws IllegalStateException if the entity has no ID.
+     */
+    @NotNull
+    public StatementPlan getUpdatePlan() {
+        return requirePlan(getStatementPlans().update);
+    }
+
+    /**
+     * Holds the snapshots of the entities, taken by {@link #snapshot(Object)}. The entities are referenced weakly
+     * and compared by identity: the entities are mutable and usually override {@code equals()}/{@code hashCode()}.
+     * Thread-safe.
+     */
+    private static final class Snapshots {
+        private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+        private final ConcurrentMap<Key, Object[]> snapshots = new ConcurrentHashMap<>();
+
+        private static final class Key extends WeakReference<Object> {
+            private final int hash;
+
+            Key(@NotNull Object entity, @Nullable ReferenceQueue<Object> queue) {
+                super(entity, queue);
+                hash = System.identityHashCode(entity);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (!(o instanceof Key)) return false;
+                final Object entity = get();
+                return entity != null && entity == ((Key) o).get();
+            }
+
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+        }
+
+        void put(@NotNull Object entity, @NotNull Object[] values) {
+            expunge();
+            snapshots.put(new Key(entity, queue), values);
+        }
+
+        @Nullable
+        Object[] get(@NotNull Object entity) {
+            expunge();
+            return snapshots.get(new Key(entity, null));
+        }
+
+        void remove(@NotNull Object entity) {
+            expunge();
+            snapshots.remove(new Key(entity, null));
+        }
+
+        private void expunge() {
+            Reference<?> ref;
+            while ((ref = queue.poll()) != null) {
+                //noinspection SuspiciousMethodCalls
+                snapshots.remove(ref);
+            }
+        }
+    }
+
+    @NotNull
+    private static final Snapshots snapshots = new Snapshots();
+
+    @NotNull
+    private Object[] readSnapshot(@NotNull Object entity) {
+        final List<PropertyMeta> properties = getStatementPlans().properties;
+        final Object[] values = new Object[properties.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = copyForSnapshot(properties.get(i).get(entity));
+        }
+        return values;
+    }
+
+    /**
+     * Copies mutable values, so that the snapshot isn't modified when the entity is.
+     */
+    @Nullable
+    private static Object copyForSnapshot(@Nullable Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        return value;
+    }
+
+    /**
+     * Takes a snapshot of the values of all persisted properties of given entity, replacing any previous snapshot.
+     * {@link #getDirtyProperties(Object)} will then list properties modified since this call.
+     * <p></p>
+     * Called automatically for {@link #isDirtyTracking() dirty-tracking} entities when they're loaded from the database,
+     * you don't need to call this function yourself unless you populate the entity from the database in some other way.
+     * @param entity the entity of type E, not null.
+     */
+    public void snapshot(@NotNull Object entity) {
+        Objects.requireNonNull(entity, "entity");
+        snapshots.put(entity, readSnapshot(entity));
+    }
+
+    /**
+     * Removes the snapshot taken by {@link #snapshot(Object)}; {@link #defaultSave(Object)} will update all columns again.
+     * Call this e.g. when a transaction which modified the entity has been rolled back.
+     * @param entity the entity of type E, not null.
+     */
+    public void clearSnapshot(@NotNull Object entity) {
+        Objects.requireNonNull(entity, "entity");
+        snapshots.remove(entity);
+    }
+
+    /**
+     * Lists properties modified since the last {@link #snapshot(Object)}.
+     * @param entity the entity of type E, not null.
+     * @return the modified properties, in the order of {@link #getProperties()}; empty if nothing was modified;
+     * null if there is no snapshot of given entity.
+     */
+    @Nullable
+    public List<PropertyMeta> getDirtyProperties(@NotNull Object entity) {
+        Objects.requireNonNull(entity, "entity");
+        final Object[] snapshot = snapshots.get(entity);
+        if (snapshot == null) {
+            return null;
+        }
+        final List<PropertyMeta> properties = getStatementPlans().properties;
+        final List<PropertyMeta> result = new ArrayList<>();
+        for (int i = 0; i < snapshot.length; i++) {
+            final PropertyMeta property = properties.get(i);
+            if (!Objects.deepEquals(snapshot[i], property.get(entity))) {
+                result.add(property);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The entity has been stored into the database. For dirty-tracking entities this takes a new snapshot once the
+     * transaction commits; until then, there is no snapshot and the entity is saved in full.
+     */
+    private void snapshotAfterCommit(@NotNull Handle handle, @NotNull Object entity) {
+        if (!dirtyTracking) {
+            return;
+        }
+        final Object[] values = readSnapshot(entity);
+        if (handle.isInTransaction()) {
+            snapshots.remove(entity);
+            handle.afterCommit(() -> snapshots.put(entity, values));
+        } else {
+            snapshots.put(entity, values);
+        }
+    }
+
     /**
      * Lists all properties for an entity. Immutable, thread-safe.
      */
@@ -217,7 +768,7 @@ public final class EntityMeta<E> implements Serializable {
         private final Set<PropertyMeta> set;
 
         public EntityProperties(@NotNull Set<PropertyMeta> p) {
-            this.set = Collections.unmodifiableSet(new HashSet<>(p));
+            this.set = Collections.unmodifiableSet(new LinkedHashSet<>(p));
             final HashMap<Property.Name, PropertyMeta> map = new HashMap<>(set.size());
             for (PropertyMeta meta : set) {
                 map.put(meta.getName(), meta);
@@ -364,10 +915,14 @@ public final class EntityMeta<E> implements Serializable {
      */
     @NotNull
     public E newEntityInstance() {
+        if (constructor == null) {
+            throw new RuntimeException(new InstantiationException(entityClass.getName() + " has no public no-arg constructor"));
+        }
         try {
-            return entityClass.getConstructor().newInstance();
-        } catch (InstantiationException | IllegalAccessException |
-                 InvocationTargetException | NoSuchMethodException e) {
+            return entityClass.cast(constructor.invokeExact());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
@@ -392,12 +947,14 @@ public final class EntityMeta<E> implements Serializable {
      * @param id the ID, may be null.
      */
     public void setId(@NotNull Object entity, @Nullable Object id) {
+        if (setIdMethod == null) {
+            throw new IllegalStateException("Invalid state: setId() not found on " + entityClass);
+        }
         try {
-            if (setIdMethod == null) {
-                throw new IllegalStateException("Invalid state: setId() not found on " + entityClass);
-            }
-            setIdMethod.invoke(entity, id);
-        } catch (IllegalAccessException | InvocationTargetException e) {
+            setIdMethod.invokeExact(entity, id);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
@@ -409,12 +966,14 @@ public final class EntityMeta<E> implements Serializable {
      */
     @Nullable
     public Object getId(@NotNull Object entity) {
+        if (getIdMethod == null) {
+            throw new IllegalStateException("Invalid state: getId() not found on " + entityClass);
+        }
         try {
-            if (getIdMethod == null) {
-                throw new IllegalStateException("Invalid state: getId() not found on " + entityClass);
-            }
-            return getIdMethod.invoke(entity);
-        } catch (IllegalAccessException | InvocationTargetException e) {
+            return (Object) getIdMethod.invokeExact(entity);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
@@ -438,73 +997,460 @@ public final class EntityMeta<E> implements Serializable {
     public void defaultCreate(@NotNull final Object entity) {
         Objects.requireNonNull(entity);
         jdbi().useHandle(handle -> {
-            final List<PropertyMeta> properties = new ArrayList<>(getProperties());
-            final List<PropertyMeta> idProperties = getIdProperty();
+            create(handle, entity);
+            RowCountCache.invalidate(handle, getDatabaseTableName());
+        });
+    }
+
+    private void create(@NotNull Handle handle, @NotNull Object entity) {
+        final List<PropertyMeta> idProperties = getIdProperty();
+        initVersion(entity);
+        // if the ID is null, it's auto-generated by the database, do not include it in the INSERT statement.
+        final StatementPlan plan = getInsertPlan(getId(entity) != null);
+        if (!generatedProperties.isEmpty()) {
+            if (hasCompositeKey() && getId(entity) == null) {
+                throw new UnsupportedOperationException("we don't support retrieving generated keys for composite PKs at the moment...");
+            }
+            executeReturning(handle, plan, entity, getReturnedProperties(getId(entity) != null));
+            snapshotAfterCommit(handle, entity);
+            return;
+        }
+        final Update update = handle.createUpdate(plan.getSql());
+        plan.bind(update, entity);
+        if (idProperties.size() > 1) {
             if (getId(entity) == null) {
-                // the ID is auto-generated by the database, do not include it in the INSERT statement.
-                properties.removeAll(idProperties);
+                // we don't support retrieving generated keys for composite PKs at the moment...
+                throw new UnsupportedOperationException("we don't support retrieving generated keys for composite PKs at the moment...");
             }
-            final Update update = handle.createUpdate("insert into <TABLE> (<FIELDS>) values (<FIELD_VALUES>)")
-                    .define("TABLE", getDatabaseTableName())
-                    .define("FIELDS", properties.stream().map(p -> p.getDbName().getUnqualifiedName()).collect(Collectors.joining(", ")))
-                    .define("FIELD_VALUES", properties.stream().map(it -> ":" + it.getName()).collect(Collectors.joining(", ")));
-            for (PropertyMeta property : properties) {
-                update.bind(property.getName().getName(), property.get(entity));
+            update.execute();
+        } else {
+            final PropertyMeta idProperty = idProperties.get(0);
+            final ResultBearing resultBearing = update
+                    .executeAndReturnGeneratedKeys(idProperty.getDbName().getUnqualifiedName());
+            final Object generatedKey = resultBearing
+                    .mapTo(idProperty.getValueType())
+                    .findFirst().orElse(null);
+            if (getId(entity) == null) {
+                Objects.requireNonNull(generatedKey, "The database have returned null key for the created record. Have you used AUTO INCREMENT or SERIAL for primary key?");
+                setId(entity, idProperty.getValueType().cast(generatedKey));
+            }
+        }
+        snapshotAfterCommit(handle, entity);
+    }
+
+    /**
+     * The default implementation of Dao.createAll(). Inserts all entities in one transaction,
+     * using JDBC batches of at most {@link JdbiOrm#getBatchSize()} rows.
+     * <p></p>
+     * Entities with null ID will have the ID generated by the database; the generated IDs are
+     * stored back into the entities, in order. If the database doesn't support retrieving
+     * generated keys from a batch (see {@link Quirks#supportsBatchGeneratedKeys()}), those entities
+     * are inserted one-by-one, but still in the same transaction.
+     * <p></p>
+     * The rows are inserted in the order of the collection: every run of consecutive entities with (or without) ID
+     * is sent as a separate sequence of batches.
+     * @param entities the entities of type E, not null, must not contain nulls.
+     */
+    public void defaultCreateAll(@NotNull Collection<?> entities) {
+        Objects.requireNonNull(entities, "entities");
+        if (entities.isEmpty()) {
+            return;
+        }
+        for (Object entity : entities) {
+            Objects.requireNonNull(entity, "entities must not contain nulls");
+            if (hasCompositeKey() && getId(entity) == null) {
+                // we don't support retrieving generated keys for composite PKs at the moment...
+                throw new UnsupportedOperationException("we don't support retrieving generated keys for composite PKs at the moment...");
             }
-            if (idProperties.size() > 1) {
-                if (getId(entity) == null) {
-                    // we don't support retrieving generated keys for composite PKs at the moment...
-                    throw new UnsupportedOperationException("we don't support retrieving generated keys for composite PKs at the moment...");
+        }
+        final int batchSize = JdbiOrm.getBatchSize();
+        jdbi().useTransaction(handle -> {
+            List<Object> run = new ArrayList<>();
+            boolean runHasId = false;
+            for (Object entity : entities) {
+                final boolean hasId = getId(entity) != null;
+                if (hasId != runHasId && !run.isEmpty()) {
+                    createBatch(handle, run, runHasId, batchSize);
+                    run = new ArrayList<>();
                 }
-                update.execute();
+                runHasId = hasId;
+                run.add(entity);
+            }
+            createBatch(handle, run, runHasId, batchSize);
+            RowCountCache.invalidate(handle, getDatabaseTableName());
+        });
+    }
+
+    private void createBatch(@NotNull Handle handle, @NotNull List<Object> entities, boolean idProvided, int batchSize) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        final Quirks quirks = Quirks.from(handle);
+        final List<PropertyMeta> returned = getReturnedProperties(idProvided);
+        final boolean batchReturnsGeneratedColumns = generatedProperties.isEmpty() || quirks.supportsGeneratedKeysOfAnyColumn();
+        if (!returned.isEmpty() && !(quirks.supportsBatchGeneratedKeys() && batchReturnsGeneratedColumns)) {
+            for (Object entity : entities) {
+                create(handle, entity);
+            }
+            return;
+        }
+        final StatementPlan plan = getInsertPlan(idProvided);
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            final List<Object> chunk = entities.subList(from, Math.min(from + batchSize, entities.size()));
+            final PreparedBatch batch = handle.prepareBatch(plan.getSql());
+            for (Object entity : chunk) {
+                initVersion(entity);
+                plan.bind(batch, entity);
+                batch.add();
+            }
+            if (returned.isEmpty()) {
+                batch.execute();
             } else {
-                final PropertyMeta idProperty = idProperties.get(0);
-                final ResultBearing resultBearing = update
-                        .executeAndReturnGeneratedKeys(idProperty.getDbName().getUnqualifiedName());
-                final Object generatedKey = resultBearing
-                        .mapTo(idProperty.getValueType())
-                        .findFirst().orElse(null);
-                if (getId(entity) == null) {
-                    Objects.requireNonNull(generatedKey, "The database have returned null key for the created record. Have you used AUTO INCREMENT or SERIAL for primary key?");
-                    setId(entity, idProperty.getValueType().cast(generatedKey));
+                final List<Object[]> generatedKeys = batch
+                        .executePreparedBatch(columnNames(returned))
+                        .map(columnValuesMapper(returned))
+                        .list();
+                if (generatedKeys.size() != chunk.size()) {
+                    throw new IllegalStateException("The database have returned " + generatedKeys.size() + " keys for " + chunk.size() + " created records");
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    setReturnedValues(chunk.get(i), returned, generatedKeys.get(i));
                 }
             }
-        });
+            for (Object entity : chunk) {
+                snapshotAfterCommit(handle, entity);
+            }
+        }
     }
 
     /**
      * The default implementation of Entity.save()
+     * <p></p>
+     * If the entity is {@link #isDirtyTracking() dirty-tracking} and has a snapshot, only the
+     * {@link #getDirtyProperties(Object) modified columns} are updated; if nothing has been modified, no statement
+     * is executed at all (and therefore this function doesn't check whether the row still exists).
      * @param entity the entity of type E
      */
     public void defaultSave(@NotNull final Object entity) {
         Objects.requireNonNull(entity);
+        final List<PropertyMeta> dirtyProperties = dirtyTracking ? getDirtyProperties(entity) : null;
+        if (dirtyProperties != null) {
+            dirtyProperties.removeAll(generatedProperties);
+            if (dirtyProperties.isEmpty()) {
+                return;
+            }
+        }
         jdbi().useHandle(handle -> {
-            List<PropertyMeta> properties = new ArrayList<>(getProperties());
-            final List<PropertyMeta> idProperties = getIdProperty();
-            properties.removeAll(idProperties);
-
             // build the Statement
-            final Update update = handle.createUpdate("update <TABLE> set <FIELDS> where <ID>")
-                    .define("TABLE", getDatabaseTableName())
-                    .define("FIELDS", properties.stream().map(it -> it.getDbName().getUnqualifiedName() + " = :" + it.getDbName().getUnqualifiedName()).collect(Collectors.joining(", ")))
-                    .define("ID", idProperties.stream().map(it -> it.getDbName().getUnqualifiedName() + " = :" + it.getDbName().getUnqualifiedName()).collect(Collectors.joining(" AND ")));
-            for (PropertyMeta property : properties) {
-                update.bind(property.getDbName().getUnqualifiedName(), property.get(entity));
+            final StatementPlan plan = dirtyProperties == null || !Collections.disjoint(dirtyProperties, getIdProperty())
+                    ? getUpdatePlan()
+                    : StatementPlans.update(getDatabaseTableName(), dirtyProperties, getIdProperty(), versionProperty);
+            // execute the Statement
+            final int result;
+            if (generatedProperties.isEmpty()) {
+                final Update update = handle.createUpdate(plan.getSql());
+                plan.bind(update, entity);
+                result = update.execute();
+            } else {
+                result = executeReturning(handle, plan, entity, generatedProperties);
             }
-            for (PropertyMeta idProperty : idProperties) {
-                update.bind(idProperty.getDbName().getUnqualifiedName(), idProperty.get(entity));
+            if (result == 0 && versionProperty != null) {
+                throw new OptimisticLockException("The row with id " + getId(entity) + " and version " + versionProperty.get(entity)
+                        + " was not found: it has been modified or deleted in the meantime");
             }
-
-            // execute the Statement
-            final int result = update
-                    .bindBean(entity)
-                    .execute();
             if (result != 1) {
                 throw new IllegalStateException("We expected to update only one row but we updated "
                         + result + " - perhaps there is no row with id " + getId(entity) + "?");
             }
+            incrementVersion(handle, entity);
+            snapshotAfterCommit(handle, entity);
+            RowCountCache.invalidate(handle, getDatabaseTableName());
+        });
+    }
+
+    /**
+     * The columns whose values are fetched back from the database after an INSERT: the {@link #getGeneratedProperties() generated columns},
+     * and the ID if it's generated by the database.
+     */
+    @NotNull
+    private List<PropertyMeta> getReturnedProperties(boolean idProvided) {
+        if (idProvided) {
+            return generatedProperties;
+        }
+        final List<PropertyMeta> result = new ArrayList<>(getIdProperty());
+        result.addAll(generatedProperties);
+        return result;
+    }
+
+    @NotNull
+    private static String[] columnNames(@NotNull List<PropertyMeta> properties) {
+        return properties.stream().map(it -> it.getDbName().getUnqualifiedName()).toArray(String[]::new);
+    }
+
+    /**
+     * Maps a row containing the values of given properties, in order, to an array of values.
+     * The values are converted by the JDBI column mappers, to the {@link PropertyMeta#getValueType() types of the properties}.
+     */
+    @NotNull
+    static RowMapper<Object[]> columnValuesMapper(@NotNull List<PropertyMeta> properties) {
+        return (rs, ctx) -> {
+            final Object[] values = new Object[properties.size()];
+            for (int i = 0; i < values.length; i++) {
+                // look up the mapper the same way FieldMapper does
+                final Field field = properties.get(i).getField();
+                final QualifiedType<?> type = QualifiedType.of(field.getGenericType())
+                        .withAnnotations(ctx.getConfig(Qualifiers.class).findFor(field));
+                final ColumnMapper<?> mapper = ctx.findColumnMapperFor(type).orElse(ColumnMapper.getDefaultColumnMapper());
+                values[i] = mapper.map(rs, i + 1, ctx);
+            }
+            return values;
+        };
+    }
+
+    private void setReturnedValues(@NotNull Object entity, @NotNull List<PropertyMeta> properties, @NotNull Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            final PropertyMeta property = properties.get(i);
+            if (getIdProperty().contains(property)) {
+                Objects.requireNonNull(values[i], "The database have returned null key for the created record. Have you used AUTO INCREMENT or SERIAL for primary key?");
+                setId(entity, property.getValueType().cast(values[i]));
+            } else {
+                property.set(entity, values[i]);
+            }
+        }
+    }
+
+    /**
+     * Executes given INSERT or UPDATE statement and stores the values of the {@code returned} columns of the affected row
+     * into the entity. The values are returned by the statement itself as JDBC generated keys,
+     * if the database {@link Quirks#supportsGeneratedKeysOfAnyColumn() supports that}; otherwise only the generated ID is returned
+     * by the statement and the rest is selected afterwards, on the same handle.
+     * @return the number of affected rows.
+     */
+    private int executeReturning(@NotNull Handle handle, @NotNull StatementPlan plan, @NotNull Object entity, @NotNull List<PropertyMeta> returned) {
+        List<PropertyMeta> returnedByStatement = returned;
+        if (!Quirks.from(handle).supportsGeneratedKeysOfAnyColumn()) {
+            returnedByStatement = new ArrayList<>(returned);
+            returnedByStatement.retainAll(getIdProperty());
+        }
+        final List<Object[]> rows;
+        if (returnedByStatement.isEmpty()) {
+            final Update update = handle.createUpdate(plan.getSql());
+            plan.bind(update, entity);
+            return selectReturned(handle, entity, returned, update.execute());
+        } else {
+            final Update update = handle.createUpdate(plan.getSql());
+            plan.bind(update, entity);
+            rows = update.executeAndReturnGeneratedKeys(columnNames(returnedByStatement))
+                    .map(columnValuesMapper(returnedByStatement)).list();
+        }
+        if (rows.size() == 1) {
+            setReturnedValues(entity, returnedByStatement, rows.get(0));
+        }
+        if (returnedByStatement.size() < returned.size()) {
+            final List<PropertyMeta> selected = new ArrayList<>(returned);
+            selected.removeAll(returnedByStatement);
+            return selectReturned(handle, entity, selected, rows.size());
+        }
+        return rows.size();
+    }
+
+    /**
+     * Selects the values of given columns of the row of given entity and stores them into the entity.
+     * @param affectedRows the number of rows affected by the statement; nothing is selected unless it's 1.
+     * @return {@code affectedRows}
+     */
+    private int selectReturned(@NotNull Handle handle, @NotNull Object entity, @NotNull List<PropertyMeta> properties, int affectedRows) {
+        if (affectedRows == 1) {
+            final Query query = handle.createQuery("select " + String.join(", ", columnNames(properties)) + " from "
+                    + getDatabaseTableName() + " where " + StatementPlans.whereId(getIdProperty()));
+            getSelectByIdPlan().bind(query, entity);
+            query.map(columnValuesMapper(properties)).findFirst()
+                    .ifPresent(values -> setReturnedValues(entity, properties, values));
+        }
+        return affectedRows;
+    }
+
+    /**
+     * Initializes the {@link #getVersionProperty() version} of given entity to 0, if the entity is versioned and the version is null.
+     * @param entity the entity of type E, not null.
+     */
+    void initVersion(@NotNull Object entity) {
+        if (versionProperty != null && versionProperty.get(entity) == null) {
+            versionProperty.set(entity, versionProperty.getValueType() == Integer.class ? (Object) 0 : (Object) 0L);
+        }
+    }
+
+    /**
+     * The row has been updated and the database has incremented the version: increment the version of the entity as well.
+     * If the transaction is rolled back, the original version is restored.
+     */
+    private void incrementVersion(@NotNull Handle handle, @NotNull Object entity) {
+        if (versionProperty == null) {
+            return;
+        }
+        final Object version = versionProperty.get(entity);
+        versionProperty.set(entity, version instanceof Integer ? (Object) ((Integer) version + 1) : (Object) ((Long) version + 1));
+        if (handle.isInTransaction()) {
+            handle.afterRollback(() -> versionProperty.set(entity, version));
+        }
+    }
+
+    /**
+     * The default implementation of Dao.saveAll(). Entities with null ID are created via
+     * {@link #defaultCreateAll(Collection)}; all other entities are updated using JDBC batches of at most
+     * {@link JdbiOrm#getBatchSize()} UPDATE statements. Everything runs in one transaction.
+     * @param entities the entities of type E, not null, must not contain nulls.
+     * @throws IllegalStateException if some of the rows were not updated, e.g. because there is no such row.
+     * The transaction is rolled back.
+     */
+    public void defaultSaveAll(@NotNull Collection<?> entities) {
+        Objects.requireNonNull(entities, "entities");
+        if (entities.isEmpty()) {
+            return;
+        }
+        final List<Object> toCreate = new ArrayList<>();
+        final List<Object> toUpdate = new ArrayList<>();
+        for (Object entity : entities) {
+            Objects.requireNonNull(entity, "entities must not contain nulls");
+            (getId(entity) == null ? toCreate : toUpdate).add(entity);
+        }
+        jdbi().useTransaction(handle -> {
+            defaultCreateAll(toCreate);
+            saveBatch(handle, toUpdate, JdbiOrm.getBatchSize());
+            RowCountCache.invalidate(handle, getDatabaseTableName());
+        });
+    }
+
+    private static final String SAVE_BATCH_SAVEPOINT = "jdbiorm_save_batch";
+
+    private void saveBatch(@NotNull Handle handle, @NotNull List<Object> entities, int batchSize) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        final StatementPlan plan = getUpdatePlan();
+        final List<Object> notUpdated = new ArrayList<>();
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            final List<Object> chunk = entities.subList(from, Math.min(from + batchSize, entities.size()));
+            final PreparedBatch batch = handle.prepareBatch(plan.getSql());
+            for (Object entity : chunk) {
+                plan.bind(batch, entity);
+                batch.add();
+            }
+            if (versionProperty != null) {
+                handle.savepoint(SAVE_BATCH_SAVEPOINT);
+            }
+            int[] result = batch.execute();
+            if (versionProperty != null) {
+                if (Arrays.stream(result).anyMatch(it -> it == Statement.SUCCESS_NO_INFO)) {
+                    // the driver didn't report per-row update counts, so we can't tell which rows had a stale version.
+                    // Undo the batch and update the rows one by one instead.
+                    handle.rollbackToSavepoint(SAVE_BATCH_SAVEPOINT);
+                    result = new int[chunk.size()];
+                    for (int i = 0; i < chunk.size(); i++) {
+                        final Update update = handle.createUpdate(plan.getSql());
+                        plan.bind(update, chunk.get(i));
+                        result[i] = update.execute();
+                    }
+                }
+                handle.releaseSavepoint(SAVE_BATCH_SAVEPOINT);
+            }
+            for (int i = 0; i < result.length; i++) {
+                // some drivers (e.g. MySQL with rewriteBatchedStatements) do not report per-row update counts.
+                if (result[i] != 1 && result[i] != Statement.SUCCESS_NO_INFO) {
+                    notUpdated.add(chunk.get(i));
+                } else {
+                    incrementVersion(handle, chunk.get(i));
+                    snapshotAfterCommit(handle, chunk.get(i));
+                }
+            }
+        }
+        if (!notUpdated.isEmpty() && versionProperty != null) {
+            throw new OptimisticLockException(notUpdated.size() + " entities have been modified or deleted in the meantime: no rows with ids "
+                    + notUpdated.stream().map(it -> getId(it) + " and version " + versionProperty.get(it)).collect(Collectors.joining(", ", "[", "]")));
+        }
+        if (!notUpdated.isEmpty()) {
+            throw new IllegalStateException("We expected to update exactly one row per entity but " + notUpdated.size()
+                    + " entities didn't update one row - perhaps there are no rows with ids "
+                    + notUpdated.stream().map(it -> String.valueOf(getId(it))).collect(Collectors.joining(", ", "[", "]")) + "?");
+        }
+    }
+
+    /**
+     * The default implementation of Dao.upsert(). Inserts the entity, or updates the row if there already is a row
+     * with the same ID, in a single statement: see {@link Quirks#upsert(String, List, List)}.
+     * If the ID is null, the entity is simply created via {@link #defaultCreate(Object)}.
+     * @param entity the entity of type E, not null.
+     * @throws UnsupportedOperationException if the entity has a {@link #getVersionProperty() version}.
+     */
+    public void defaultUpsert(@NotNull Object entity) {
+        Objects.requireNonNull(entity);
+        checkUpsertSupported();
+        if (getId(entity) == null) {
+            defaultCreate(entity);
+            return;
+        }
+        jdbi().useHandle(handle -> {
+            final StatementPlan plan = getUpsertPlan(Quirks.from(handle));
+            final Update update = handle.createUpdate(plan.getSql());
+            plan.bind(update, entity);
+            update.execute();
+            snapshotAfterCommit(handle, entity);
+            RowCountCache.invalidate(handle, getDatabaseTableName());
         });
+    }
 
+    /**
+     * The default implementation of Dao.upsertAll(). Entities with null ID are created via
+     * {@link #defaultCreateAll(Collection)}; all other entities are upserted (see {@link #defaultUpsert(Object)})
+     * using JDBC batches of at most {@link JdbiOrm#getBatchSize()} statements. Everything runs in one transaction.
+     * @param entities the entities of type E, not null, must not contain nulls.
+     * @throws UnsupportedOperationException if the entity has a {@link #getVersionProperty() version}.
+     */
+    public void defaultUpsertAll(@NotNull Collection<?> entities) {
+        Objects.requireNonNull(entities, "entities");
+        checkUpsertSupported();
+        if (entities.isEmpty()) {
+            return;
+        }
+        final List<Object> toCreate = new ArrayList<>();
+        final List<Object> toUpsert = new ArrayList<>();
+        for (Object entity : entities) {
+            Objects.requireNonNull(entity, "entities must not contain nulls");
+            (getId(entity) == null ? toCreate : toUpsert).add(entity);
+        }
+        jdbi().useTransaction(handle -> {
+            defaultCreateAll(toCreate);
+            upsertBatch(handle, toUpsert, JdbiOrm.getBatchSize());
+            RowCountCache.invalidate(handle, getDatabaseTableName());
+        });
+    }
+
+    /**
+     * The upsert statement overwrites the row regardless of its version, which would silently defeat the optimistic locking.
+     */
+    private void checkUpsertSupported() {
+        if (versionProperty != null) {
+            throw new UnsupportedOperationException(entityClass.getSimpleName() + " is versioned via @Version: upsert can't check the version, use create() or save() instead");
+        }
+    }
+
+    private void upsertBatch(@NotNull Handle handle, @NotNull List<Object> entities, int batchSize) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        final StatementPlan plan = getUpsertPlan(Quirks.from(handle));
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            final List<Object> chunk = entities.subList(from, Math.min(from + batchSize, entities.size()));
+            final PreparedBatch batch = handle.prepareBatch(plan.getSql());
+            for (Object entity : chunk) {
+                plan.bind(batch, entity);
+                batch.add();
+            }
+            batch.execute();
+            for (Object entity : chunk) {
+                snapshotAfterCommit(handle, entity);
+            }
+        }
     }
 
     /**
@@ -516,6 +1462,9 @@ public final class EntityMeta<E> implements Serializable {
         final Dao dao = new Dao<>(((Class<AbstractEntity>) entityClass));
         final AbstractEntity<?> current = dao.getById(getId(entity));
         dao.meta.copyTo(current, entity);
+        if (dirtyTracking) {
+            snapshot(entity);
+        }
     }
 
     // see https://www.digitalocean.com/community/tutorials/serialization-in-java#serialization-proxy-pattern
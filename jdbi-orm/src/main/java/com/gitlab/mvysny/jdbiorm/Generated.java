@@ -0,0 +1,23 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a column whose value is generated by the database, e.g. a column with a <code>DEFAULT</code> value,
+ * a computed column or a column filled in by a trigger or a sequence. The ID doesn't need to be annotated:
+ * a null ID is always generated by the database.
+ * <p></p>
+ * The column is never written by jdbi-orm: it's omitted from the INSERT and UPDATE statements.
+ * Instead, {@link Entity#create()} and {@link Entity#save()} fetch its value back into the entity, in the same
+ * statement if the database supports that (<code>RETURNING</code> on PostgreSQL and CockroachDB,
+ * generated keys on H2), or by a subsequent SELECT on the same connection otherwise (MySQL, MariaDB and MSSQL); see {@link com.gitlab.mvysny.jdbiorm.quirks.Quirks#supportsGeneratedKeysOfAnyColumn()}.
+ * There's therefore no need to call {@link Entity#reload()}. {@link Dao#createAll(java.util.Collection)} fetches the
+ * values as well; the other bulk operations don't.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Generated {
+}
@@ -159,6 +159,86 @@ public final class JdbiOrm {
         }
     }
 
+    /**
+     * The maximum number of rows sent to the database in one JDBC batch, see {@link #getBatchSize()}.
+     */
+    private static volatile int batchSize = 1000;
+
+    /**
+     * Returns the maximum number of rows sent to the database in one JDBC batch by the bulk
+     * operations such as {@link Dao#createAll(java.util.Collection)}. Larger collections are split
+     * into multiple batches, all of them executed in the same transaction.
+     * Defaults to 1000.
+     * @return the batch size, 1 or greater.
+     */
+    public static int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of rows sent to the database in one JDBC batch. See {@link #getBatchSize()}.
+     * @param batchSize the new batch size, must be 1 or greater.
+     */
+    public static void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Parameter batchSize: invalid value " + batchSize + ": must be 1 or greater");
+        }
+        JdbiOrm.batchSize = batchSize;
+    }
+
+    /**
+     * The number of rows fetched at once by the streaming finders, see {@link #getFetchSize()}.
+     */
+    private static volatile int fetchSize = 1000;
+
+    /**
+     * Returns the number of rows the JDBC driver fetches from the database at once, when the rows are streamed via
+     * {@link DaoOfAny#stream(com.gitlab.mvysny.jdbiorm.condition.Condition, OrderBy...)} and similar.
+     * Defaults to 1000.
+     * @return the fetch size, 1 or greater.
+     */
+    public static int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the number of rows fetched at once by the streaming finders. See {@link #getFetchSize()}.
+     * @param fetchSize the new fetch size, must be 1 or greater.
+     */
+    public static void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Parameter fetchSize: invalid value " + fetchSize + ": must be 1 or greater");
+        }
+        JdbiOrm.fetchSize = fetchSize;
+    }
+
+    /**
+     * Whether the row mappers generate {@link java.lang.invoke.MethodHandle}s, see {@link #isGeneratedRowMappers()}.
+     */
+    private static volatile boolean generatedRowMappers = false;
+
+    /**
+     * If true, {@link com.gitlab.mvysny.jdbiorm.jdbi.FieldMapper} constructs the beans and writes the fields
+     * via {@link java.lang.invoke.MethodHandle}s instead of reflection. Fields of type <code>long</code>, <code>int</code>,
+     * <code>short</code>, <code>byte</code>, <code>double</code>, <code>float</code> and <code>boolean</code> are read
+     * straight from the result set via {@link java.sql.ResultSet#getLong(int)} and similar, without boxing; column mappers
+     * registered for those unqualified primitive types are therefore not used.
+     * <p></p>
+     * Speeds up mapping of large numbers of rows. Defaults to false.
+     * @return true if the generated row mappers are used.
+     */
+    public static boolean isGeneratedRowMappers() {
+        return generatedRowMappers;
+    }
+
+    /**
+     * Enables or disables the generated row mappers, see {@link #isGeneratedRowMappers()}.
+     * @param generatedRowMappers true to use the generated row mappers.
+     */
+    public static void setGeneratedRowMappers(boolean generatedRowMappers) {
+        JdbiOrm.generatedRowMappers = generatedRowMappers;
+    }
+
     /**
      * Governs the return value of {@link #getLocale()}.
      * Returns {@link Locale#getDefault()} by default.
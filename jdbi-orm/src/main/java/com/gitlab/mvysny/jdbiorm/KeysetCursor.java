@@ -0,0 +1,127 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Encodes the sort key of the last row of a {@link KeysetPage} into an opaque, URL-safe cursor and back.
+ * <p></p>
+ * The cursor consists of one entry per sort key, separated by <code>~</code>. Every entry consists of the
+ * {@link Property#toExternalString() external form} of the property, the {@link OrderBy.Order sort direction},
+ * the type of the value and the value itself, separated by <code>!</code>; the property and the value are Base64-encoded. Only the value types listed in {@link #PARSERS}
+ * are supported, so that a tampered cursor can't instantiate arbitrary classes.
+ */
+final class KeysetCursor {
+    private KeysetCursor() {}
+
+    /**
+     * Parses the values of supported types from their {@link Object#toString()} form.
+     */
+    private static final Map<String, Function<String, Object>> PARSERS = new HashMap<>();
+
+    static {
+        PARSERS.put(String.class.getName(), it -> it);
+        PARSERS.put(Character.class.getName(), it -> it.charAt(0));
+        PARSERS.put(Boolean.class.getName(), Boolean::valueOf);
+        PARSERS.put(Byte.class.getName(), Byte::valueOf);
+        PARSERS.put(Short.class.getName(), Short::valueOf);
+        PARSERS.put(Integer.class.getName(), Integer::valueOf);
+        PARSERS.put(Long.class.getName(), Long::valueOf);
+        PARSERS.put(Float.class.getName(), Float::valueOf);
+        PARSERS.put(Double.class.getName(), Double::valueOf);
+        PARSERS.put(BigDecimal.class.getName(), BigDecimal::new);
+        PARSERS.put(BigInteger.class.getName(), BigInteger::new);
+        PARSERS.put(UUID.class.getName(), UUID::fromString);
+        PARSERS.put(LocalDate.class.getName(), LocalDate::parse);
+        PARSERS.put(LocalTime.class.getName(), LocalTime::parse);
+        PARSERS.put(LocalDateTime.class.getName(), LocalDateTime::parse);
+        PARSERS.put(Instant.class.getName(), Instant::parse);
+        PARSERS.put(OffsetDateTime.class.getName(), OffsetDateTime::parse);
+        PARSERS.put(java.sql.Date.class.getName(), java.sql.Date::valueOf);
+        PARSERS.put(java.sql.Time.class.getName(), java.sql.Time::valueOf);
+        PARSERS.put(java.sql.Timestamp.class.getName(), java.sql.Timestamp::valueOf);
+        PARSERS.put(Date.class.getName(), it -> new Date(Long.parseLong(it)));
+    }
+
+    /**
+     * Creates the cursor.
+     * @param keys the sort keys, not null.
+     * @param values the values of the sort keys of the last row, in the order of {@code keys}.
+     * @return the cursor, not null.
+     */
+    @NotNull
+    static String encode(@NotNull List<OrderBy> keys, @NotNull Object[] values) {
+        final StringJoiner cursor = new StringJoiner("~");
+        for (int i = 0; i < keys.size(); i++) {
+            final OrderBy key = keys.get(i);
+            final Property<?> property = key.getProperty();
+            final Object value = values[i];
+            if (value == null) {
+                throw new IllegalStateException("Invalid state: " + property + " is null; keyset paging requires non-null sort keys");
+            }
+            final String type = value.getClass().getName();
+            if (!PARSERS.containsKey(type)) {
+                throw new IllegalArgumentException("Parameter orderBy: invalid value " + keys + ": " + property + " is of type " + type + " which is not supported by keyset paging");
+            }
+            final String text = value instanceof Date && !(value instanceof java.sql.Date || value instanceof java.sql.Time || value instanceof java.sql.Timestamp)
+                    ? String.valueOf(((Date) value).getTime()) : value.toString();
+            cursor.add(base64(property.toExternalString()) + "!" + key.getOrder() + "!" + type + "!" + base64(text));
+        }
+        return cursor.toString();
+    }
+
+    /**
+     * Parses the cursor.
+     * @param cursor the cursor produced by {@link #encode(List, Object[])}, not null.
+     * @param keys the sort keys, must match the keys the cursor has been created for.
+     * @return the values of the sort keys, in the order of {@code keys}.
+     */
+    @NotNull
+    static Object[] decode(@NotNull String cursor, @NotNull List<OrderBy> keys) {
+        final String[] entries = cursor.split("~", -1);
+        if (entries.length != keys.size()) {
+            throw new IllegalArgumentException("Parameter cursor: invalid value " + cursor + ": the cursor was created for a different ordering");
+        }
+        final Object[] values = new Object[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            final String[] parts = entries[i].split("!", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Parameter cursor: invalid value " + cursor + ": incorrect format");
+            }
+            final OrderBy key = keys.get(i);
+            if (!key.getProperty().toExternalString().equals(unbase64(cursor, parts[0])) || !key.getOrder().name().equals(parts[1])) {
+                throw new IllegalArgumentException("Parameter cursor: invalid value " + cursor + ": the cursor was created for a different ordering");
+            }
+            final Function<String, Object> parser = PARSERS.get(parts[2]);
+            if (parser == null) {
+                throw new IllegalArgumentException("Parameter cursor: invalid value " + cursor + ": unsupported type " + parts[2]);
+            }
+            try {
+                values[i] = parser.apply(unbase64(cursor, parts[3]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Parameter cursor: invalid value " + cursor + ": " + e.getMessage(), e);
+            }
+        }
+        return values;
+    }
+
+    @NotNull
+    private static String base64(@NotNull String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @NotNull
+    private static String unbase64(@NotNull String cursor, @NotNull String text) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(text), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Parameter cursor: invalid value " + cursor + ": incorrect format", e);
+        }
+    }
+}
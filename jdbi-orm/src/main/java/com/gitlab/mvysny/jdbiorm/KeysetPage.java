@@ -0,0 +1,56 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A page of rows returned by {@link DaoOfAny#findPageAfter(com.gitlab.mvysny.jdbiorm.condition.Condition, List, String, long)}:
+ * the rows themselves, plus an opaque cursor pointing after the last row, used to fetch the next page.
+ * @param <T> the type of the rows.
+ */
+public final class KeysetPage<T> implements Serializable {
+    @NotNull
+    private final List<T> items;
+    @Nullable
+    private final String nextCursor;
+
+    public KeysetPage(@NotNull List<T> items, @Nullable String nextCursor) {
+        this.items = Collections.unmodifiableList(Objects.requireNonNull(items));
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return the rows on this page, unmodifiable, not null. May be empty if there are no more rows.
+     */
+    @NotNull
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * The opaque cursor to pass to {@link DaoOfAny#findPageAfter(com.gitlab.mvysny.jdbiorm.condition.Condition, List, String, long)}
+     * in order to fetch the next page. The cursor is a URL-safe string and may be handed out to the client.
+     * @return the cursor, or null if this is the last page.
+     */
+    @Nullable
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return true if there are more rows after this page.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPage{" + items.size() + " items, nextCursor=" + nextCursor + "}";
+    }
+}
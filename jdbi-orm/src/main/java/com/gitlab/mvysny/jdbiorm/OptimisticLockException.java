@@ -0,0 +1,13 @@
+package com.gitlab.mvysny.jdbiorm;
+
+/**
+ * Thrown when an entity with a {@link Version} field is being saved, but the row in the database has been
+ * modified or deleted in the meantime: there is no row with given ID and the version of the entity being saved.
+ * <p></p>
+ * The caller can recover by reloading the entity, re-applying the modifications and saving it again.
+ */
+public class OptimisticLockException extends IllegalStateException {
+    public OptimisticLockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A page of rows returned by {@link DaoOfAny#findPage(com.gitlab.mvysny.jdbiorm.condition.Condition, List, Long, Long)}:
+ * the rows themselves, plus the total count of rows matching the condition, regardless of the offset and limit.
+ * @param <T> the type of the rows.
+ */
+public final class Page<T> implements Serializable {
+    @NotNull
+    private final List<T> items;
+    private final long total;
+
+    public Page(@NotNull List<T> items, long total) {
+        Objects.requireNonNull(items, "items");
+        if (total < items.size()) {
+            throw new IllegalArgumentException("Parameter total: invalid value " + total + ": must be " + items.size() + " or greater");
+        }
+        this.items = Collections.unmodifiableList(items);
+        this.total = total;
+    }
+
+    /**
+     * @return the rows on this page, unmodifiable, not null. May be empty if the offset points past the last row.
+     */
+    @NotNull
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the total count of matching rows, 0 or greater.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" + items.size() + " items, total=" + total + "}";
+    }
+}
@@ -5,6 +5,11 @@ import org.jdbi.v3.core.mapper.reflect.ColumnName;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -50,6 +55,43 @@ public final class PropertyMeta {
     @NotNull
     private final Property.Name name;
 
+    /**
+     * Cached value of {@link #getDbColumnName()}.
+     */
+    @NotNull
+    private final String dbColumnName;
+
+    /**
+     * Cached value of {@link #getDbName()}. Computed lazily: the {@link EntityMeta} of the
+     * owner entity is being constructed while this property is created.
+     */
+    @Nullable
+    private volatile Property.DbName dbName;
+
+    /**
+     * Reads the value of the corresponding {@link #fieldPath} field. Each handle is of type <code>(Object)Object</code>.
+     */
+    @NotNull
+    private final MethodHandle[] getters;
+
+    /**
+     * Writes the value of the corresponding {@link #fieldPath} field. Each handle is of type <code>(Object, Object)void</code>.
+     */
+    @NotNull
+    private final MethodHandle[] setters;
+
+    /**
+     * Creates a new instance of the type of the corresponding {@link #fieldPath} field, used when a {@link Nested}
+     * object along the path is null. Each handle is of type <code>()Object</code>; the last item is always null, and
+     * an item is null also if the type has no accessible no-arg constructor.
+     */
+    @NotNull
+    private final MethodHandle[] constructors;
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
     /**
      * Creates the property.
      * @param fieldPath the field, not null. See {@link #fieldPath} for more info.
@@ -62,6 +104,39 @@ public final class PropertyMeta {
         }
         namePath = Collections.unmodifiableList(fieldPath.stream().map(Field::getName).collect(Collectors.toList()));
         name = new Property.Name(namePath.size() == 1 ? namePath.get(0) : String.join(".", namePath));
+        final ColumnName annotation = this.fieldPath.getLast().getAnnotation(ColumnName.class);
+        dbColumnName = annotation == null ? getLastName() : annotation.value();
+
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final int size = this.fieldPath.size();
+        getters = new MethodHandle[size];
+        setters = new MethodHandle[size];
+        constructors = new MethodHandle[size];
+        for (int i = 0; i < size; i++) {
+            final Field field = this.fieldPath.get(i);
+            field.setAccessible(true);
+            try {
+                getters[i] = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                setters[i] = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            if (i < size - 1) {
+                constructors[i] = findConstructor(lookup, field.getType());
+            }
+        }
+    }
+
+    @Nullable
+    private static MethodHandle findConstructor(@NotNull MethodHandles.Lookup lookup, @NotNull Class<?> type) {
+        try {
+            final Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return lookup.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            // set() fails when it needs to instantiate this type.
+            return null;
+        }
     }
 
     /**
@@ -111,8 +186,7 @@ public final class PropertyMeta {
      */
     @NotNull
     private String getDbColumnName() {
-        final ColumnName annotation = fieldPath.getLast().getAnnotation(ColumnName.class);
-        return annotation == null ? getLastName() : annotation.value();
+        return dbColumnName;
     }
 
     /**
@@ -125,6 +199,16 @@ public final class PropertyMeta {
      */
     @NotNull
     public Property.DbName getDbName() {
+        Property.DbName result = dbName;
+        if (result == null) {
+            result = computeDbName();
+            dbName = result;
+        }
+        return result;
+    }
+
+    @NotNull
+    private Property.DbName computeDbName() {
         final String dbColumnName = getDbColumnName();
         if (dbColumnName.contains(".")) {
             // fully-qualified column name, pass-through.
@@ -137,6 +221,25 @@ public final class PropertyMeta {
         return new Property.DbName(EntityMeta.of(entityClass).getDatabaseTableName(), dbColumnName);
     }
 
+    /**
+     * Returns the annotation of given type present on the last {@link Field} in the field path.
+     * @param annotationClass the annotation type, not null.
+     * @return the annotation, or null if the field isn't annotated.
+     * @param <A> the annotation type.
+     */
+    @Nullable
+    public <A extends Annotation> A getAnnotation(@NotNull Class<A> annotationClass) {
+        return fieldPath.getLast().getAnnotation(annotationClass);
+    }
+
+    /**
+     * @return the last {@link Field} in the field path, holding the value of this property. Not null.
+     */
+    @NotNull
+    Field getField() {
+        return fieldPath.getLast();
+    }
+
     /**
      * The type of the value this field can take.
      * @return the value type, not null.
@@ -146,20 +249,44 @@ public final class PropertyMeta {
         return fieldPath.getLast().getType();
     }
 
+    /**
+     * Reads the value of this property from given entity. In case of nested entities, returns null if any
+     * object along the {@link #fieldPath} is null.
+     * @param entity the entity, not null.
+     * @return the value, may be null.
+     */
     @Nullable
     public Object get(@NotNull Object entity) {
         Objects.requireNonNull(entity, "entity");
-        Object current = entity;
-        for (Field field : fieldPath) {
-            field.setAccessible(true);
-            try {
-                current = field.get(current);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
-            if (current == null) {
-                return null;
+        return get(entity, 0);
+    }
+
+    /**
+     * Reads the value of this property from the value of the first field of the {@link #fieldPath}. Handy e.g. to
+     * obtain a component of a composite ID from the ID object itself.
+     * @param value the value of the first field, not null.
+     * @return the value of this property, may be null.
+     */
+    @Nullable
+    Object getFromFirstFieldValue(@NotNull Object value) {
+        Objects.requireNonNull(value, "value");
+        return get(value, 1);
+    }
+
+    @Nullable
+    private Object get(@NotNull Object object, int fromIndex) {
+        Object current = object;
+        try {
+            for (int i = fromIndex; i < getters.length; i++) {
+                current = getters[i].invokeExact(current);
+                if (current == null) {
+                    return null;
+                }
             }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
         }
         return current;
     }
@@ -191,23 +318,25 @@ public final class PropertyMeta {
      * @param value the new value, may be null.
      */
     public void set(@NotNull Object entity, @Nullable Object value) {
+        Objects.requireNonNull(entity, "entity");
         Object current = entity;
-        for (Field field : fieldPath.subList(0, fieldPath.size() - 1)) {
-            field.setAccessible(true);
-            try {
-                Object newCurrent = field.get(current);
+        try {
+            final int last = getters.length - 1;
+            for (int i = 0; i < last; i++) {
+                Object newCurrent = getters[i].invokeExact(current);
                 if (newCurrent == null) {
-                    newCurrent = field.getType().newInstance();
-                    field.set(current, newCurrent);
+                    if (constructors[i] == null) {
+                        throw new RuntimeException(new InstantiationException(fieldPath.get(i).getType() + " has no accessible no-arg constructor"));
+                    }
+                    newCurrent = constructors[i].invokeExact();
+                    setters[i].invokeExact(current, newCurrent);
                 }
                 current = newCurrent;
-            } catch (IllegalAccessException | InstantiationException e) {
-                throw new RuntimeException(e);
             }
-        }
-        try {
-            fieldPath.get(fieldPath.size() - 1).set(current, value);
-        } catch (IllegalAccessException e) {
+            setters[last].invokeExact(current, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
@@ -0,0 +1,77 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import com.gitlab.mvysny.jdbiorm.condition.Condition;
+import org.jdbi.v3.core.Handle;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the exact row counts computed by {@link DaoOfAny#countCached(Condition, Duration)}, per table and condition.
+ * All counts of a table are invalidated by {@link #invalidate(Handle, String)} whenever the table is modified via {@link Dao},
+ * {@link DaoOfAny} or {@link Entity}.
+ */
+final class RowCountCache {
+    private RowCountCache() {}
+
+    /**
+     * At most this number of conditions is cached per table; the cache of the table is cleared once exceeded.
+     */
+    private static final int MAX_CONDITIONS_PER_TABLE = 100;
+
+    private static final class CachedCount {
+        private final long count;
+        /**
+         * {@link System#nanoTime()} at which the count expires.
+         */
+        private final long expiresAt;
+
+        CachedCount(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final Map<String, Map<Condition, CachedCount>> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached count, or computes it if it's not cached or has expired.
+     * @param table the database table name, not null.
+     * @param condition the condition, {@link Condition#NO_CONDITION} if all rows are counted.
+     * @param ttl how long the count is cached, not null.
+     * @param counter counts the rows exactly.
+     * @return the row count.
+     */
+    static long get(@NotNull String table, @NotNull Condition condition, @NotNull Duration ttl, @NotNull LongSupplier counter) {
+        // grab the map before counting: if the table is invalidated meanwhile, the count lands in a detached map and is forgotten.
+        final Map<Condition, CachedCount> counts = CACHE.computeIfAbsent(table, t -> new ConcurrentHashMap<>());
+        final CachedCount cached = counts.get(condition);
+        final long now = System.nanoTime();
+        if (cached != null && now - cached.expiresAt < 0) {
+            return cached.count;
+        }
+        final long count = counter.getAsLong();
+        if (counts.size() >= MAX_CONDITIONS_PER_TABLE) {
+            counts.clear();
+        }
+        counts.put(condition, new CachedCount(count, now + ttl.toNanos()));
+        return count;
+    }
+
+    /**
+     * Forgets all cached counts of given table, once the modifications made via given handle are committed: until then,
+     * other transactions still see the old rows, and a count cached meanwhile would outlive the commit.
+     * @param handle the handle which modified the table, not null.
+     * @param table the database table name, not null.
+     */
+    static void invalidate(@NotNull Handle handle, @NotNull String table) {
+        if (handle.isInTransaction()) {
+            handle.afterCommit(() -> CACHE.remove(table));
+        } else {
+            CACHE.remove(table);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the version field of an entity, used for optimistic locking. The field must be of type <code>int</code>,
+ * <code>long</code>, {@link Integer} or {@link Long}. At most one field per entity may be annotated.
+ * <p></p>
+ * {@link Entity#create()} initializes the version to 0 if it's null. {@link Entity#save()} only updates the row
+ * if the version in the database still matches the version of the entity (<code>UPDATE ... WHERE id = ? AND version = ?</code>),
+ * and increments the version of both the row and the entity. If the row has been modified or deleted
+ * in the meantime, {@link OptimisticLockException} is thrown: reload the entity, re-apply the changes and try again.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Version {
+}
@@ -0,0 +1,513 @@
+package com.gitlab.mvysny.jdbiorm;
+
+import com.gitlab.mvysny.jdbiorm.spi.AbstractEntity;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.gitlab.mvysny.jdbiorm.JdbiOrm.jdbi;
+
+/**
+ * An opt-in write-behind wrapper of a {@link Dao}: {@link #save(AbstractEntity)}, {@link #create(AbstractEntity)} and
+ * {@link #delete(AbstractEntity)} don't touch the database; instead, the writes are queued and flushed by a background
+ * thread in JDBC batches, once there are {@link #getFlushSize()} writes pending or every {@link #getFlushInterval()}, whichever
+ * comes first. Intended for entities which are written many times per second, e.g. telemetry:
+ * <pre>
+ * final WriteBehindDao&lt;Sensor, Long&gt; writer = new WriteBehindDao&lt;&gt;(Sensor.dao);
+ * sensor.setValue(25);
+ * writer.save(sensor);
+ * ...
+ * writer.close(); // flushes all pending writes
+ * </pre>
+ * Repeated writes of the same ID are coalesced, the last write wins: saving the same entity 100 times between two flushes
+ * only produces one UPDATE. The entities are cloned when queued, so that they can be modified further by the caller.
+ * The pending writes are flushed in the order they were last queued, in one transaction: consecutive writes of the same kind
+ * form one batch, via {@link Dao#createAll(java.util.Collection)}, {@link Dao#saveAll(java.util.Collection)},
+ * {@link Dao#upsertAll(java.util.Collection)} and {@link Dao#deleteByIds(java.util.Collection)}.
+ * <p></p>
+ * At most {@link #getCapacity()} distinct IDs may be pending; once the queue is full, further writes of other IDs block
+ * until a flush frees up room. If a background flush fails, the exception is logged, its writes are discarded and
+ * {@link Metrics#getFailedFlushes()} is incremented; a failing synchronous {@link #flush()} throws the exception instead.
+ * <p></p>
+ * The writes are validated when they're queued. The IDs must be known upfront: entities with IDs generated by the database
+ * are not supported, neither are entities with a {@link Version} column, since the version of the caller's entity
+ * could not be incremented. Just like with {@link Dao#createAll(java.util.Collection)}, the overrides of
+ * {@link Entity#create(boolean)} and {@link Entity#save(boolean)} are not called.
+ * <p></p>
+ * Thread-safe. Don't forget to call {@link #close()} when the application shuts down, otherwise the pending writes are lost.
+ * @param <T> the type of the entity
+ * @param <ID> the type of the entity ID
+ */
+public final class WriteBehindDao<T extends AbstractEntity<ID>, ID> implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindDao.class);
+
+    private enum Operation {
+        CREATE, SAVE, UPSERT, DELETE
+    }
+
+    /**
+     * A pending write.
+     */
+    private static final class Write<T> {
+        @NotNull
+        private final Operation operation;
+        /**
+         * A clone of the entity to write; null for {@link Operation#DELETE}.
+         */
+        @Nullable
+        private final T entity;
+
+        Write(@NotNull Operation operation, @Nullable T entity) {
+            this.operation = operation;
+            this.entity = entity;
+        }
+
+        /**
+         * Coalesces this write with a subsequent write of the same ID. The last write wins, with two exceptions:
+         * a row which hasn't been inserted yet must still be inserted, and a row which hasn't been deleted yet may still exist
+         * (or may not exist anymore, so that a subsequent save has to upsert).
+         */
+        @NotNull
+        Write<T> coalesce(@NotNull Write<T> next) {
+            if (operation == Operation.CREATE && next.operation == Operation.SAVE) {
+                return new Write<>(Operation.CREATE, next.entity);
+            }
+            if (operation == Operation.DELETE && next.operation == Operation.CREATE) {
+                return new Write<>(Operation.UPSERT, next.entity);
+            }
+            if ((operation == Operation.UPSERT || operation == Operation.DELETE) && next.operation == Operation.SAVE) {
+                return new Write<>(Operation.UPSERT, next.entity);
+            }
+            return next;
+        }
+    }
+
+    @NotNull
+    private final Dao<T, ID> dao;
+    private final int capacity;
+    private final int flushSize;
+    @NotNull
+    private final Duration flushInterval;
+    /**
+     * The pending writes, in the order they were last queued. Guards itself, {@link #closed} and the producers waiting for room in the queue.
+     */
+    @NotNull
+    private final LinkedHashMap<ID, Write<T>> pending = new LinkedHashMap<>();
+    private boolean closed = false;
+    /**
+     * Serializes the flushes, so that the writes reach the database in order.
+     */
+    @NotNull
+    private final Object flushLock = new Object();
+    @NotNull
+    private final ScheduledExecutorService executor;
+    @NotNull
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos = 0;
+
+    /**
+     * Creates the write-behind DAO with the capacity of 10000 pending writes, flushing {@link JdbiOrm#getBatchSize()} writes or every second.
+     * @param dao the DAO to write through, not null.
+     */
+    public WriteBehindDao(@NotNull Dao<T, ID> dao) {
+        this(dao, 10_000, JdbiOrm.getBatchSize(), Duration.ofSeconds(1));
+    }
+
+    /**
+     * Creates the write-behind DAO and starts its background thread.
+     * @param dao the DAO to write through, not null.
+     * @param capacity at most this number of distinct IDs may be pending; further writes block. 1 or greater.
+     * @param flushSize the pending writes are flushed once there are this many of them. 1 or greater, at most {@code capacity}.
+     * @param flushInterval the pending writes are flushed at least this often. Must be positive.
+     * @throws IllegalArgumentException if the entity has a {@link Version} column.
+     */
+    public WriteBehindDao(@NotNull Dao<T, ID> dao, int capacity, int flushSize, @NotNull Duration flushInterval) {
+        this.dao = Objects.requireNonNull(dao, "dao");
+        Objects.requireNonNull(flushInterval, "flushInterval");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Parameter capacity: invalid value " + capacity + ": must be 1 or greater");
+        }
+        if (flushSize < 1 || flushSize > capacity) {
+            throw new IllegalArgumentException("Parameter flushSize: invalid value " + flushSize + ": must be between 1 and " + capacity);
+        }
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Parameter flushInterval: invalid value " + flushInterval + ": must be positive");
+        }
+        if (dao.meta.getVersionProperty() != null) {
+            throw new IllegalArgumentException("Parameter dao: invalid value " + dao + ": entities with @Version are not supported");
+        }
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "jdbi-orm-write-behind-" + dao.entityClass.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long intervalNanos = flushInterval.toNanos();
+        executor.scheduleWithFixedDelay(this::flushInBackground, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the DAO this write-behind DAO writes through, not null.
+     */
+    @NotNull
+    public Dao<T, ID> getDao() {
+        return dao;
+    }
+
+    /**
+     * @return at most this number of distinct IDs may be pending.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the pending writes are flushed once there are this many of them.
+     */
+    public int getFlushSize() {
+        return flushSize;
+    }
+
+    /**
+     * @return the pending writes are flushed at least this often, not null.
+     */
+    @NotNull
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Queues an UPDATE of the row of given entity. The entity is validated and cloned.
+     * @param entity the entity to save, not null. The ID must not be null.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     * @throws IllegalStateException if this DAO has been closed.
+     */
+    public void save(@NotNull T entity) {
+        dao.validate(Objects.requireNonNull(entity, "entity"));
+        enqueue(requireId(entity), new Write<>(Operation.SAVE, dao.meta.clone(entity)));
+    }
+
+    /**
+     * Queues an INSERT of given entity. The entity is validated and cloned.
+     * @param entity the entity to create, not null. The ID must not be null.
+     * @throws jakarta.validation.ConstraintViolationException when validation fails.
+     * @throws IllegalStateException if this DAO has been closed.
+     */
+    public void create(@NotNull T entity) {
+        dao.validate(Objects.requireNonNull(entity, "entity"));
+        enqueue(requireId(entity), new Write<>(Operation.CREATE, dao.meta.clone(entity)));
+    }
+
+    /**
+     * Queues a DELETE of the row of given entity.
+     * @param entity the entity to delete, not null. The ID must not be null.
+     * @throws IllegalStateException if this DAO has been closed.
+     */
+    public void delete(@NotNull T entity) {
+        deleteById(requireId(Objects.requireNonNull(entity, "entity")));
+    }
+
+    /**
+     * Queues a DELETE of the row with given ID.
+     * @param id the ID, not null.
+     * @throws IllegalStateException if this DAO has been closed.
+     */
+    public void deleteById(@NotNull ID id) {
+        enqueue(Objects.requireNonNull(id, "id"), new Write<>(Operation.DELETE, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private ID requireId(@NotNull T entity) {
+        final ID id = (ID) dao.meta.getId(entity);
+        if (id == null) {
+            throw new IllegalArgumentException("Parameter entity: invalid value " + entity + ": the ID must not be null; use Dao for entities with IDs generated by the database");
+        }
+        return id;
+    }
+
+    private void enqueue(@NotNull ID id, @NotNull Write<T> write) {
+        final int size;
+        synchronized (pending) {
+            while (!closed && pending.size() >= capacity && !pending.containsKey(id)) {
+                // back-pressure: wait until a flush makes room in the queue
+                requestFlush();
+                try {
+                    pending.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for room in the write-behind queue", e);
+                }
+            }
+            if (closed) {
+                throw new IllegalStateException("Invalid state: " + this + " has been closed");
+            }
+            // re-insert, so that the write is flushed after the writes queued before it.
+            final Write<T> previous = pending.remove(id);
+            if (previous != null) {
+                coalesced.incrementAndGet();
+            }
+            pending.put(id, previous == null ? write : previous.coalesce(write));
+            size = pending.size();
+        }
+        queued.incrementAndGet();
+        if (size >= flushSize) {
+            requestFlush();
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    flushRequested.set(false);
+                    flushInBackground();
+                });
+            } catch (RejectedExecutionException e) {
+                // closed in the meantime; close() flushes the pending writes.
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush pending writes of " + dao.entityClass.getSimpleName() + ", the writes are discarded", e);
+        }
+    }
+
+    /**
+     * Synchronously writes all pending writes to the database, in one transaction. Call this e.g. before the application shuts down.
+     * Waits for the background flush to finish first, if there's one in progress.
+     * @throws RuntimeException if the writes fail; the transaction is rolled back and the pending writes are discarded.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            final List<Map.Entry<ID, Write<T>>> writes;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                writes = new ArrayList<>(pending.entrySet());
+                pending.clear();
+                pending.notifyAll();
+            }
+            final long start = System.nanoTime();
+            try {
+                jdbi().useTransaction(handle -> write(writes));
+                written.addAndGet(writes.size());
+            } catch (RuntimeException e) {
+                failedFlushes.incrementAndGet();
+                throw e;
+            } finally {
+                lastFlushNanos = System.nanoTime() - start;
+                totalFlushNanos.addAndGet(lastFlushNanos);
+                flushes.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Writes consecutive writes of the same kind in one batch.
+     */
+    private void write(@NotNull List<Map.Entry<ID, Write<T>>> writes) {
+        int from = 0;
+        while (from < writes.size()) {
+            final Operation operation = writes.get(from).getValue().operation;
+            int to = from + 1;
+            while (to < writes.size() && writes.get(to).getValue().operation == operation) {
+                to++;
+            }
+            final List<Map.Entry<ID, Write<T>>> batch = writes.subList(from, to);
+            if (operation == Operation.DELETE) {
+                final List<ID> ids = new ArrayList<>(batch.size());
+                batch.forEach(it -> ids.add(it.getKey()));
+                dao.deleteByIds(ids);
+            } else {
+                final List<T> entities = new ArrayList<>(batch.size());
+                batch.forEach(it -> entities.add(it.getValue().entity));
+                switch (operation) {
+                    case CREATE:
+                        dao.createAll(entities, false);
+                        break;
+                    case SAVE:
+                        dao.saveAll(entities, false);
+                        break;
+                    case UPSERT:
+                        dao.upsertAll(entities, false);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected operation " + operation);
+                }
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Flushes all pending writes and stops the background thread. Further writes fail with {@link IllegalStateException}.
+     * Does nothing if this DAO has already been closed.
+     * @throws RuntimeException if the final flush fails.
+     */
+    @Override
+    public void close() {
+        synchronized (pending) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.notifyAll();
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * @return the number of distinct IDs with pending writes.
+     */
+    public int getQueueDepth() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * @return a snapshot of the metrics of this DAO, not null.
+     */
+    @NotNull
+    public Metrics getMetrics() {
+        return new Metrics(getQueueDepth(), queued.get(), coalesced.get(), written.get(), flushes.get(), failedFlushes.get(),
+                Duration.ofNanos(lastFlushNanos), Duration.ofNanos(totalFlushNanos.get()));
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindDao{" + dao.entityClass.getSimpleName() + ", capacity=" + capacity + ", flushSize=" + flushSize
+                + ", flushInterval=" + flushInterval + '}';
+    }
+
+    /**
+     * A snapshot of the {@link WriteBehindDao} metrics. Immutable.
+     */
+    public static final class Metrics implements Serializable {
+        private final int queueDepth;
+        private final long queued;
+        private final long coalesced;
+        private final long written;
+        private final long flushes;
+        private final long failedFlushes;
+        @NotNull
+        private final Duration lastFlushDuration;
+        @NotNull
+        private final Duration totalFlushDuration;
+
+        public Metrics(int queueDepth, long queued, long coalesced, long written, long flushes, long failedFlushes,
+                       @NotNull Duration lastFlushDuration, @NotNull Duration totalFlushDuration) {
+            this.queueDepth = queueDepth;
+            this.queued = queued;
+            this.coalesced = coalesced;
+            this.written = written;
+            this.flushes = flushes;
+            this.failedFlushes = failedFlushes;
+            this.lastFlushDuration = Objects.requireNonNull(lastFlushDuration);
+            this.totalFlushDuration = Objects.requireNonNull(totalFlushDuration);
+        }
+
+        /**
+         * @return the number of distinct IDs with pending writes.
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return the total number of writes queued so far, including the coalesced ones.
+         */
+        public long getQueued() {
+            return queued;
+        }
+
+        /**
+         * @return the number of writes which were merged with a pending write of the same ID.
+         */
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        /**
+         * @return the number of rows successfully written to the database.
+         */
+        public long getWritten() {
+            return written;
+        }
+
+        /**
+         * @return the number of flushes which wrote something, including the failed ones.
+         */
+        public long getFlushes() {
+            return flushes;
+        }
+
+        /**
+         * @return the number of failed flushes. The writes of those flushes were discarded.
+         */
+        public long getFailedFlushes() {
+            return failedFlushes;
+        }
+
+        /**
+         * @return the duration of the last flush, not null. Zero if there was no flush yet.
+         */
+        @NotNull
+        public Duration getLastFlushDuration() {
+            return lastFlushDuration;
+        }
+
+        /**
+         * @return the average duration of a flush, not null. Zero if there was no flush yet.
+         */
+        @NotNull
+        public Duration getAverageFlushDuration() {
+            return flushes == 0 ? Duration.ZERO : totalFlushDuration.dividedBy(flushes);
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{queueDepth=" + queueDepth + ", queued=" + queued + ", coalesced=" + coalesced + ", written=" + written
+                    + ", flushes=" + flushes + ", failedFlushes=" + failedFlushes + ", lastFlush=" + lastFlushDuration.toMillis()
+                    + "ms, averageFlush=" + getAverageFlushDuration().toMillis() + "ms}";
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.gitlab.mvysny.jdbiorm.condition;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * An aggregate function such as <code>COUNT(*)</code> or <code>SUM(arg)</code>, calculated by the database over a group of rows.
+ * Usable in the select list and the <code>HAVING</code> clause of {@link com.gitlab.mvysny.jdbiorm.AggregateQuery}.
+ * @param <V> the result type of the function.
+ */
+public final class AggregateFunction<V> implements Expression<V> {
+    public enum Function {
+        COUNT, SUM, AVG, MIN, MAX
+    }
+
+    @NotNull
+    private final Function function;
+    /**
+     * The argument of the function; null for <code>COUNT(*)</code>.
+     */
+    @Nullable
+    private final Expression<?> arg;
+
+    public AggregateFunction(@NotNull Function function, @Nullable Expression<?> arg) {
+        this.function = Objects.requireNonNull(function);
+        if (arg == null && function != Function.COUNT) {
+            throw new IllegalArgumentException("Parameter arg: invalid value null: only COUNT(*) has no argument");
+        }
+        this.arg = arg;
+    }
+
+    /**
+     * The <code>COUNT(*)</code> function, counting all rows of the group.
+     * @return the COUNT(*) function, not null.
+     */
+    @NotNull
+    public static AggregateFunction<Long> countAll() {
+        return new AggregateFunction<>(Function.COUNT, null);
+    }
+
+    @NotNull
+    public Function getFunction() {
+        return function;
+    }
+
+    /**
+     * @return the argument of the function; null for <code>COUNT(*)</code>.
+     */
+    @Nullable
+    public Expression<?> getArg() {
+        return arg;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AggregateFunction)) return false;
+        AggregateFunction<?> that = (AggregateFunction<?>) o;
+        return function == that.function && Objects.equals(arg, that.arg);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(function, arg);
+    }
+
+    @Override
+    public String toString() {
+        return function + "(" + (arg == null ? "*" : arg.toString()) + ")";
+    }
+
+    @Override
+    public @NotNull ParametrizedSql toSql() {
+        if (arg == null) {
+            return new ParametrizedSql(function + "(*)");
+        }
+        final ParametrizedSql sql = arg.toSql();
+        return new ParametrizedSql(function + "(" + sql.getSql92() + ")", sql.getSql92Parameters());
+    }
+
+    @Override
+    public @Nullable Object calculate(@NotNull Object row) {
+        throw new IllegalStateException("Invalid state: " + this + " is calculated over a group of rows, can't calculate it on a single row");
+    }
+}
@@ -633,6 +633,54 @@ public interface Expression<V> extends Serializable {
         return ifNull(new Expression.Value<>(other));
     }
 
+    /**
+     * The <code>COUNT</code> aggregate function, counting the rows of the group where this expression is not null.
+     * Use {@link AggregateFunction#countAll()} to count all rows.
+     * @return the COUNT function.
+     */
+    @NotNull
+    default Expression<Long> count() {
+        return new AggregateFunction<>(AggregateFunction.Function.COUNT, this);
+    }
+
+    /**
+     * The <code>SUM</code> aggregate function. The database decides the type of the result, e.g. <code>BIGINT</code> for
+     * <code>INTEGER</code> arguments; it's null if the group has no non-null values.
+     * @return the SUM function.
+     */
+    @NotNull
+    default Expression<Number> sum() {
+        return new AggregateFunction<>(AggregateFunction.Function.SUM, this);
+    }
+
+    /**
+     * The <code>AVG</code> aggregate function. Beware: some databases (e.g. H2 and MSSQL) truncate the average of integer values
+     * to an integer; {@link #cast(String, Class) cast} the argument to a decimal type to avoid that.
+     * @return the AVG function.
+     */
+    @NotNull
+    default Expression<Number> avg() {
+        return new AggregateFunction<>(AggregateFunction.Function.AVG, this);
+    }
+
+    /**
+     * The <code>MIN</code> aggregate function.
+     * @return the MIN function.
+     */
+    @NotNull
+    default Expression<V> min() {
+        return new AggregateFunction<>(AggregateFunction.Function.MIN, this);
+    }
+
+    /**
+     * The <code>MAX</code> aggregate function.
+     * @return the MAX function.
+     */
+    @NotNull
+    default Expression<V> max() {
+        return new AggregateFunction<>(AggregateFunction.Function.MAX, this);
+    }
+
     /**
      * The <code>CAST</code> function.
      * @param sqlType The value is cast to this SQL type, for example <code>CHAR</code>.
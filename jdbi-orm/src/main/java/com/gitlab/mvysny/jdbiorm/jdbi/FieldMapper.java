@@ -13,7 +13,9 @@
  */
 package com.gitlab.mvysny.jdbiorm.jdbi;
 
+import com.gitlab.mvysny.jdbiorm.DirtyTracking;
 import com.gitlab.mvysny.jdbiorm.EntityMeta;
+import com.gitlab.mvysny.jdbiorm.JdbiOrm;
 import org.jdbi.v3.core.annotation.internal.JdbiAnnotations;
 import org.jdbi.v3.core.mapper.*;
 import org.jdbi.v3.core.mapper.reflect.ColumnName;
@@ -22,8 +24,12 @@ import org.jdbi.v3.core.mapper.reflect.ReflectionMappers;
 import org.jdbi.v3.core.mapper.reflect.internal.NullDelegatingMapper;
 import org.jdbi.v3.core.qualifier.QualifiedType;
 import org.jdbi.v3.core.qualifier.Qualifiers;
+import org.jdbi.v3.core.result.UnableToProduceResultException;
 import org.jdbi.v3.core.statement.StatementContext;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -42,7 +48,14 @@ import static org.jdbi.v3.core.mapper.reflect.ReflectionMapperUtil.*;
  * <p></p>
  * Changes done to the class:
  * <ul>
- *     <li>{@link #createSpecializedRowMapper(StatementContext, List, List, List)} is patched to ignore static fields</li>
+ *     <li>{@link #createPlan(ReflectionMappers, List, List, List)} is patched to ignore static fields</li>
+ *     <li>mapped {@link DirtyTracking} entities are snapshot via {@link EntityMeta#snapshot(Object)}</li>
+ *     <li>the outcome of the reflection performed by {@link #specialize(ResultSet, StatementContext)} is cached in a {@link MappingPlan},
+ *     keyed by the result set column labels and the {@link ReflectionMappers} configuration; only the {@link ColumnMapper}s
+ *     are looked up for every query, so that the column mapper configuration is honored.</li>
+ *     <li>if {@link JdbiOrm#isGeneratedRowMappers()} is enabled, the bean is constructed and the fields are written via
+ *     {@link MethodHandle}s instead of reflection, and the primitive fields are read straight from the
+ *     {@link ResultSet} via {@link ResultSet#getLong(int)} and similar, without boxing.</li>
  * </ul>
  * Workaround for https://github.com/jdbi/jdbi/issues/2607 and https://gitlab.com/mvysny/jdbi-orm/-/issues/8
  */
@@ -93,9 +106,27 @@ public final class FieldMapper<T> implements RowMapper<T> {
         return new FieldMapper<>(type, prefix);
     }
 
+    /**
+     * At most this number of {@link MappingPlan}s is cached. Every mapped class and result set shape produces one plan.
+     */
+    private static final int MAX_CACHED_PLANS = 1000;
+    private static final Map<PlanKey, MappingPlan<?>> PLANS = new ConcurrentHashMap<>();
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    /**
+     * The {@link ResultSet} getters of the primitive types which are mapped without boxing when
+     * {@link JdbiOrm#isGeneratedRowMappers()} is enabled. Matches the getters used by JDBI's built-in primitive mappers.
+     */
+    private static final Map<Class<?>, String> PRIMITIVE_GETTERS = Map.of(
+            boolean.class, "getBoolean",
+            byte.class, "getByte",
+            short.class, "getShort",
+            int.class, "getInt",
+            long.class, "getLong",
+            float.class, "getFloat",
+            double.class, "getDouble");
+
     private final Class<T> type;
     private final String prefix;
-    private final Map<Field, FieldMapper<?>> nestedMappers = new ConcurrentHashMap<>();
 
     private FieldMapper(Class<T> type, String prefix) {
         this.type = type;
@@ -108,29 +139,49 @@ public final class FieldMapper<T> implements RowMapper<T> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public RowMapper<T> specialize(ResultSet rs, StatementContext ctx) throws SQLException {
-        final UnaryOperator<String> caseChange = ctx.getConfig(ReflectionMappers.class).getCaseChange();
+        final ReflectionMappers reflectionConfig = ctx.getConfig(ReflectionMappers.class);
+        final UnaryOperator<String> caseChange = reflectionConfig.getCaseChange();
         final List<String> columnNames = getColumnNames(rs, caseChange);
-        final List<ColumnNameMatcher> columnNameMatchers = ctx.getConfig(ReflectionMappers.class).getColumnNameMatchers();
+        final PlanKey key = new PlanKey(type, prefix, columnNames, caseChange, reflectionConfig.getColumnNameMatchers(), reflectionConfig.isStrictMatching());
+        MappingPlan<T> plan = (MappingPlan<T>) PLANS.get(key);
+        if (plan == null) {
+            plan = createPlan(reflectionConfig, columnNames);
+            if (PLANS.size() >= MAX_CACHED_PLANS) {
+                // evict an arbitrary plan; unbounded number of plans would be produced e.g. by dynamically generated SQL.
+                final Iterator<PlanKey> iterator = PLANS.keySet().iterator();
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+            PLANS.put(key, plan);
+        }
+        return plan.bind(ctx);
+    }
+
+    private MappingPlan<T> createPlan(ReflectionMappers reflectionConfig, List<String> columnNames) {
+        final List<ColumnNameMatcher> columnNameMatchers = reflectionConfig.getColumnNameMatchers();
         final List<String> unmatchedColumns = new ArrayList<>(columnNames);
 
-        RowMapper<T> mapper = createSpecializedRowMapper(ctx, columnNames, columnNameMatchers, unmatchedColumns)
+        MappingPlan<T> plan = createPlan(reflectionConfig, columnNames, columnNameMatchers, unmatchedColumns)
             .orElseThrow(() -> new IllegalArgumentException(format("Mapping fields for type %s didn't find any matching columns in result set", type)));
 
-        if (ctx.getConfig(ReflectionMappers.class).isStrictMatching()
+        if (reflectionConfig.isStrictMatching()
             && anyColumnsStartWithPrefix(unmatchedColumns, prefix, columnNameMatchers)) {
             throw new IllegalArgumentException(
                 format("Mapping type %s could not match fields for columns: %s", type.getSimpleName(), unmatchedColumns));
         }
 
-        return mapper;
+        return plan;
     }
 
-    private Optional<RowMapper<T>> createSpecializedRowMapper(StatementContext ctx,
+    private Optional<MappingPlan<T>> createPlan(ReflectionMappers reflectionConfig,
                                                List<String> columnNames,
                                                List<ColumnNameMatcher> columnNameMatchers,
                                                List<String> unmatchedColumns) {
-        final List<FieldData> fields = new ArrayList<>();
+        final List<FieldPlan> fields = new ArrayList<>();
 
         for (Class<?> aType = type; aType != null; aType = aType.getSuperclass()) {
             for (Field field : aType.getDeclaredFields()) {
@@ -148,22 +199,20 @@ public final class FieldMapper<T> implements RowMapper<T> {
 
                     findColumnIndex(paramName, columnNames, columnNameMatchers, () -> debugName(field))
                         .ifPresent(index -> {
-                            QualifiedType<?> fieldType = QualifiedType.of(field.getGenericType())
-                                .withAnnotations(ctx.getConfig(Qualifiers.class).findFor(field));
-                            ColumnMapper<?> mapper = ctx.findColumnMapperFor(fieldType)
-                                .orElse(getDefaultColumnMapper());
-                            fields.add(new FieldData(field, new SingleColumnMapper<>(mapper, index + 1)));
+                            reflectionConfig.makeAccessible(field);
+                            fields.add(new FieldPlan(field, index + 1, null));
                             unmatchedColumns.remove(columnNames.get(index));
                         });
                 } else {
                     String nestedPrefix = addPropertyNamePrefix(prefix, nested.value());
 
                     if (anyColumnsStartWithPrefix(columnNames, nestedPrefix, columnNameMatchers)) {
-                        nestedMappers
-                            .computeIfAbsent(field, f -> new FieldMapper<>(field.getType(), nestedPrefix))
-                            .createSpecializedRowMapper(ctx, columnNames, columnNameMatchers, unmatchedColumns)
-                            .ifPresent(mapper ->
-                                fields.add(new FieldData(field, mapper)));
+                        new FieldMapper<>(field.getType(), nestedPrefix)
+                            .createPlan(reflectionConfig, columnNames, columnNameMatchers, unmatchedColumns)
+                            .ifPresent(nestedPlan -> {
+                                reflectionConfig.makeAccessible(field);
+                                fields.add(new FieldPlan(field, 0, nestedPlan));
+                            });
                     }
                 }
             }
@@ -175,24 +224,18 @@ public final class FieldMapper<T> implements RowMapper<T> {
 
         fields.sort(Comparator.comparing(f -> f.propagateNull ? 1 : 0));
 
-        final ReflectionMappers reflectionConfig = ctx.getConfig(ReflectionMappers.class);
-        fields.forEach(fieldData ->
-                reflectionConfig.makeAccessible(fieldData.field));
-
         final Constructor<T> constructor;
         try {
             constructor = reflectionConfig.makeAccessible(type.getDeclaredConstructor());
         } catch (ReflectiveOperationException e) {
             throw new IllegalArgumentException(format("A type, %s, was mapped which was not instantiable", type.getName()), e);
         }
-        RowMapper<T> boundMapper = new BoundFieldMapper(constructor, fields);
+        // Only top-level dirty-tracking entities are snapshot.
+        final EntityMeta<T> dirtyTrackingMeta = prefix.isEmpty() && type.isAnnotationPresent(DirtyTracking.class) ? EntityMeta.of(type) : null;  // PATCH
         OptionalInt propagateNullColumnIndex = locatePropagateNullColumnIndex(columnNames, columnNameMatchers);
 
-        if (propagateNullColumnIndex.isPresent()) {
-            return Optional.of(new NullDelegatingMapper<>(propagateNullColumnIndex.getAsInt() + 1, boundMapper));
-        } else {
-            return Optional.of(boundMapper);
-        }
+        return Optional.of(new MappingPlan<>(type, prefix, constructor, fields, dirtyTrackingMeta,
+                propagateNullColumnIndex.isPresent() ? propagateNullColumnIndex.getAsInt() + 1 : 0));
     }
 
     private OptionalInt locatePropagateNullColumnIndex(List<String> columnNames, List<ColumnNameMatcher> columnNameMatchers) {
@@ -229,28 +272,239 @@ public final class FieldMapper<T> implements RowMapper<T> {
         return propagateNullValue.isPresent();
     }
 
+    /**
+     * Identifies a {@link MappingPlan}: the mapped class, and everything the outcome of the column matching depends on.
+     */
+    private static final class PlanKey {
+        private final Class<?> type;
+        private final String prefix;
+        private final List<String> columnNames;
+        private final UnaryOperator<String> caseChange;
+        private final List<ColumnNameMatcher> columnNameMatchers;
+        private final boolean strictMatching;
+        private final int hashCode;
+
+        PlanKey(Class<?> type, String prefix, List<String> columnNames, UnaryOperator<String> caseChange,
+                List<ColumnNameMatcher> columnNameMatchers, boolean strictMatching) {
+            this.type = type;
+            this.prefix = prefix;
+            this.columnNames = columnNames;
+            this.caseChange = caseChange;
+            this.columnNameMatchers = new ArrayList<>(columnNameMatchers);
+            this.strictMatching = strictMatching;
+            hashCode = Objects.hash(type, prefix, columnNames, caseChange, this.columnNameMatchers, strictMatching);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PlanKey)) return false;
+            PlanKey that = (PlanKey) o;
+            return hashCode == that.hashCode && strictMatching == that.strictMatching && type == that.type
+                && prefix.equals(that.prefix) && columnNames.equals(that.columnNames)
+                && caseChange.equals(that.caseChange) && columnNameMatchers.equals(that.columnNameMatchers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A mapped field: either a column, or a {@link Nested} bean.
+     */
+    private static final class FieldPlan {
+        final Field field;
+        /**
+         * The 1-based index of the column, 0 if the field is {@link Nested}.
+         */
+        final int columnIndex;
+        /**
+         * The type of the field including qualifiers, used to look up the column mapper. Null if the field is {@link Nested}.
+         */
+        final QualifiedType<?> fieldType;
+        /**
+         * Maps the {@link Nested} bean. Null if the field is mapped from a column.
+         */
+        final MappingPlan<?> nested;
+        final boolean propagateNull;
+        /**
+         * Writes the field, of type <code>(Object bean, Object value)void</code>. Null if the field is primitive,
+         * or the handle can't be created (e.g. the field is final).
+         */
+        final MethodHandle setter;
+        /**
+         * Reads the column via the primitive {@link ResultSet} getter and writes the value straight into the primitive field,
+         * of type <code>(Object bean, ResultSet rs)void</code>. Null if the field isn't of a primitive type listed in
+         * {@link #PRIMITIVE_GETTERS}, if it's qualified (and therefore has a dedicated column mapper), or if the handle can't be created.
+         */
+        final MethodHandle primitiveWriter;
+
+        /**
+         * @param field the field, already made accessible.
+         */
+        FieldPlan(Field field, int columnIndex, MappingPlan<?> nested) {
+            this.field = field;
+            this.columnIndex = columnIndex;
+            this.nested = nested;
+            fieldType = nested != null ? null : QualifiedType.of(field.getGenericType())
+                .withAnnotations(new Qualifiers().findFor(field));
+            propagateNull = checkPropagateNullAnnotation(field);
+
+            final Class<?> type = field.getType();
+            final MethodHandle fieldSetter = unreflectSetter(field);
+            setter = fieldSetter == null || type.isPrimitive() ? null
+                : fieldSetter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            final String getter = PRIMITIVE_GETTERS.get(type);
+            if (fieldSetter == null || getter == null || !fieldType.getQualifiers().isEmpty()) {
+                primitiveWriter = null;
+            } else {
+                final MethodHandle reader;
+                try {
+                    reader = LOOKUP.findVirtual(ResultSet.class, getter, MethodType.methodType(type, int.class));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+                // (Object bean, ResultSet rs) -> bean.field = rs.getXyz(columnIndex)
+                primitiveWriter = MethodHandles.collectArguments(
+                        fieldSetter.asType(MethodType.methodType(void.class, Object.class, type)),
+                        1, MethodHandles.insertArguments(reader, 1, columnIndex));
+            }
+        }
+
+        private static MethodHandle unreflectSetter(Field field) {
+            try {
+                return LOOKUP.unreflectSetter(field);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The outcome of matching the fields of a class against the columns of a result set. Immutable, thread-safe.
+     */
+    private static final class MappingPlan<T> {
+        private final Class<T> type;
+        private final String prefix;
+        private final Constructor<T> constructor;
+        /**
+         * Creates the bean, of type <code>()Object</code>.
+         */
+        private final MethodHandle constructorHandle;
+        private final List<FieldPlan> fields;
+        private final EntityMeta<T> dirtyTrackingMeta;
+        /**
+         * The 1-based index of the {@link PropagateNull} column, 0 if there's none.
+         */
+        private final int propagateNullColumn;
+
+        /**
+         * @param constructor the constructor, already made accessible.
+         */
+        MappingPlan(Class<T> type, String prefix, Constructor<T> constructor, List<FieldPlan> fields,
+                    EntityMeta<T> dirtyTrackingMeta, int propagateNullColumn) {
+            this.type = type;
+            this.prefix = prefix;
+            this.constructor = constructor;
+            this.fields = fields;
+            this.dirtyTrackingMeta = dirtyTrackingMeta;
+            this.propagateNullColumn = propagateNullColumn;
+            try {
+                constructorHandle = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(format("A type, %s, was mapped which was not instantiable", type.getName()), e);
+            }
+        }
+
+        /**
+         * Looks up the column mappers and produces the row mapper.
+         */
+        RowMapper<T> bind(StatementContext ctx) {
+            final boolean generated = JdbiOrm.isGeneratedRowMappers();
+            final List<FieldData> fieldData = new ArrayList<>(fields.size());
+            for (FieldPlan field : fields) {
+                if (generated && field.primitiveWriter != null) {
+                    fieldData.add(new FieldData(field.field, null, field.propagateNull, field.columnIndex, null, field.primitiveWriter));
+                    continue;
+                }
+                final RowMapper<?> mapper;
+                if (field.nested != null) {
+                    mapper = field.nested.bind(ctx);
+                } else {
+                    mapper = new SingleColumnMapper<>(ctx.findColumnMapperFor(field.fieldType)
+                        .orElse(getDefaultColumnMapper()), field.columnIndex);
+                }
+                fieldData.add(new FieldData(field.field, mapper, field.propagateNull, field.columnIndex, generated ? field.setter : null, null));
+            }
+            RowMapper<T> boundMapper = new BoundFieldMapper<>(type, prefix, constructor, generated ? constructorHandle : null,
+                    fieldData, dirtyTrackingMeta, ctx.getConfig(ColumnMappers.class).getCoalesceNullPrimitivesToDefaults());
+            if (propagateNullColumn > 0) {
+                return new NullDelegatingMapper<>(propagateNullColumn, boundMapper);
+            } else {
+                return boundMapper;
+            }
+        }
+    }
+
     private static class FieldData {
 
-        FieldData(Field field, RowMapper<?> mapper) {
+        FieldData(Field field, RowMapper<?> mapper, boolean propagateNull, int columnIndex, MethodHandle setter, MethodHandle primitiveWriter) {
             this.field = field;
             this.mapper = mapper;
-            propagateNull = checkPropagateNullAnnotation(field);
+            this.propagateNull = propagateNull;
             isPrimitive = field.getType().isPrimitive();
+            this.columnIndex = columnIndex;
+            this.setter = setter;
+            this.primitiveWriter = primitiveWriter;
         }
 
         final Field field;
+        /**
+         * Maps the value; null if {@link #primitiveWriter} is used instead.
+         */
         final RowMapper<?> mapper;
         final boolean propagateNull;
         final boolean isPrimitive;
+        final int columnIndex;
+        /**
+         * See {@link FieldPlan#setter}; if null, {@link Field#set(Object, Object)} is used.
+         */
+        final MethodHandle setter;
+        /**
+         * See {@link FieldPlan#primitiveWriter}.
+         */
+        final MethodHandle primitiveWriter;
     }
 
-    class BoundFieldMapper implements RowMapper<T> {
+    static class BoundFieldMapper<T> implements RowMapper<T> {
+        private final Class<T> type;
+        private final String prefix;
         private final Constructor<T> constructor;
+        /**
+         * See {@link MappingPlan#constructorHandle}; if null, {@link Constructor#newInstance(Object...)} is used.
+         */
+        private final MethodHandle constructorHandle;
         private final List<FieldData> fields;
-
-        BoundFieldMapper(Constructor<T> constructor, List<FieldData> fields) {
+        /**
+         * Non-null if the mapped entities should be snapshot after they're mapped.
+         */
+        private final EntityMeta<T> dirtyTrackingMeta;
+        /**
+         * {@link ColumnMappers#getCoalesceNullPrimitivesToDefaults()}, needed by {@link FieldData#primitiveWriter}.
+         */
+        private final boolean coalesceNullPrimitivesToDefaults;
+
+        BoundFieldMapper(Class<T> type, String prefix, Constructor<T> constructor, MethodHandle constructorHandle,
+                         List<FieldData> fields, EntityMeta<T> dirtyTrackingMeta, boolean coalesceNullPrimitivesToDefaults) {
+            this.type = type;
+            this.prefix = prefix;
             this.constructor = constructor;
+            this.constructorHandle = constructorHandle;
             this.fields = fields;
+            this.dirtyTrackingMeta = dirtyTrackingMeta;
+            this.coalesceNullPrimitivesToDefaults = coalesceNullPrimitivesToDefaults;
         }
 
         @Override
@@ -258,17 +512,51 @@ public final class FieldMapper<T> implements RowMapper<T> {
             T obj = construct();
 
             for (FieldData f : fields) {
+                if (f.primitiveWriter != null) {
+                    // the field is written even if the column is null: the bean is thrown away if the field is @PropagateNull.
+                    try {
+                        f.primitiveWriter.invokeExact((Object) obj, rs);
+                    } catch (SQLException | RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable e) {
+                        throw new IllegalArgumentException(format("Unable to access property, %s", f.field.getName()), e);
+                    }
+                    if (rs.wasNull()) {
+                        if (f.propagateNull) {
+                            return null;
+                        }
+                        if (!coalesceNullPrimitivesToDefaults) {
+                            // the same behavior as JDBI's built-in primitive mappers
+                            throw new UnableToProduceResultException(format("Database null values are not allowed for Java primitives by the current configuration: could not map column %s (%s). Change your result type to a boxed primitive to resolve.",
+                                    f.columnIndex, rs.getMetaData().getColumnLabel(f.columnIndex)));
+                        }
+                    }
+                    continue;
+                }
                 Object value = f.mapper.map(rs, ctx);
                 if (f.propagateNull && (value == null || (f.isPrimitive && rs.wasNull()))) {
                     return null;
                 }
-                writeField(obj, f.field, value);
+                writeField(obj, f, value);
             }
 
+            if (dirtyTrackingMeta != null) {  // PATCH
+                dirtyTrackingMeta.snapshot(obj);
+            }
             return obj;
         }
 
+        @SuppressWarnings("unchecked")
         private T construct() {
+            if (constructorHandle != null) {
+                try {
+                    return (T) (Object) constructorHandle.invokeExact();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalArgumentException(format("A type, %s, was mapped which was not instantiable", type.getName()), e);
+                }
+            }
             try {
                 return constructor.newInstance();
             } catch (ReflectiveOperationException | SecurityException e) {
@@ -276,11 +564,17 @@ public final class FieldMapper<T> implements RowMapper<T> {
             }
         }
 
-        private void writeField(T obj, Field field, Object value) {
+        private void writeField(T obj, FieldData f, Object value) {
             try {
-                field.set(obj, value);
-            } catch (IllegalAccessException e) {
-                throw new IllegalArgumentException(format("Unable to access property, %s", field.getName()), e);
+                if (f.setter != null) {
+                    f.setter.invokeExact((Object) obj, value);
+                } else {
+                    f.field.set(obj, value);
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException(format("Unable to access property, %s", f.field.getName()), e);
             }
         }
 
@@ -293,4 +587,3 @@ public final class FieldMapper<T> implements RowMapper<T> {
         }
     }
 }
-
@@ -25,6 +25,12 @@ public enum DatabaseVariant {
         }
     },
     PostgreSQL {
+        @NotNull
+        @Override
+        public Quirks getQuirks() {
+            return new PostgreSqlQuirks();
+        }
+
         @Override
         public boolean matches(@NotNull Connection connection) throws SQLException {
             final String databaseProductName = connection.getMetaData().getDatabaseProductName();
@@ -32,6 +38,12 @@ public enum DatabaseVariant {
         }
     },
     H2 {
+        @NotNull
+        @Override
+        public Quirks getQuirks() {
+            return new H2Quirks();
+        }
+
         @Override
         public boolean matches(@NotNull Connection connection) throws SQLException {
             final String databaseProductName = connection.getMetaData().getDatabaseProductName();
@@ -0,0 +1,36 @@
+package com.gitlab.mvysny.jdbiorm.quirks;
+
+import org.jdbi.v3.core.Handle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Adds H2 quirks support.
+ */
+public class H2Quirks implements Quirks {
+    @Override
+    public void configure(@NotNull Handle handle) {
+    }
+
+    @Override
+    @NotNull
+    public String exists(@NotNull String select) {
+        return "SELECT EXISTS(" + select + ")";
+    }
+
+    @Override
+    @Nullable
+    public String rowCountEstimate(@NotNull String table) {
+        return "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = UPPER(:table)";
+    }
+
+    @Override
+    @NotNull
+    public String upsert(@NotNull String table, @NotNull List<String> columns, @NotNull List<String> idColumns) {
+        return "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (" + String.join(", ", idColumns)
+                + ") VALUES (" + columns.stream().map(it -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+}
@@ -4,6 +4,10 @@ import org.jdbi.v3.core.Handle;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * Adds Microsoft SQL quirks support.
  * @author mavi
@@ -36,4 +40,62 @@ public class MssqlQuirks implements Quirks {
     public String offsetLimitRequiresOrderBy() {
         return "ORDER BY (SELECT 1)";
     }
+
+    @Override
+    public boolean supportsBatchGeneratedKeys() {
+        // the MSSQL driver only returns the key generated for the last row of the batch.
+        return false;
+    }
+
+    @Override
+    public int maxStatementParameters() {
+        // MSSQL fails with more than 2100 parameters; leave some room for additional parameters.
+        return 2000;
+    }
+
+    @Override
+    public boolean supportsRowValueIn() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsGeneratedKeysOfAnyColumn() {
+        // only the IDENTITY column is returned.
+        return false;
+    }
+
+    @Override
+    @NotNull
+    public String exists(@NotNull String select) {
+        // MSSQL doesn't support boolean expressions in the select list.
+        return "SELECT CASE WHEN EXISTS(" + select + ") THEN 1 ELSE 0 END";
+    }
+
+    @Override
+    @Nullable
+    public String rowCountEstimate(@NotNull String table) {
+        // index 0 is the heap, index 1 the clustered index; either holds all rows of the table.
+        return "SELECT SUM(rows) FROM sys.partitions WHERE object_id = OBJECT_ID(:table) AND index_id IN (0, 1)";
+    }
+
+    @Override
+    @NotNull
+    public String upsert(@NotNull String table, @NotNull List<String> columns, @NotNull List<String> idColumns) {
+        final List<String> updatedColumns = new ArrayList<>(columns);
+        updatedColumns.removeAll(idColumns);
+        // without HOLDLOCK, two concurrent MERGEs may both see no match and both insert, failing with a duplicate key.
+        final StringBuilder sb = new StringBuilder("MERGE INTO ").append(table).append(" WITH (HOLDLOCK) AS target USING (VALUES (")
+                .append(columns.stream().map(it -> "?").collect(Collectors.joining(", ")))
+                .append(")) AS source (").append(String.join(", ", columns)).append(") ON ")
+                .append(idColumns.stream().map(it -> "target." + it + " = source." + it).collect(Collectors.joining(" AND ")));
+        if (!updatedColumns.isEmpty()) {
+            sb.append(" WHEN MATCHED THEN UPDATE SET ")
+                    .append(updatedColumns.stream().map(it -> it + " = source." + it).collect(Collectors.joining(", ")));
+        }
+        sb.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", columns)).append(") VALUES (")
+                .append(columns.stream().map(it -> "source." + it).collect(Collectors.joining(", ")))
+                // MSSQL requires MERGE to be terminated by a semicolon.
+                .append(");");
+        return sb.toString();
+    }
 }
@@ -6,7 +6,14 @@ import org.jdbi.v3.core.mapper.ColumnMappers;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Adds MySQL and MariaDB quirks support.
@@ -28,4 +35,59 @@ public class MySqlQuirks implements Quirks {
         }
         return Quirks.super.offsetLimit(offset, limit);
     }
+
+    @Override
+    public boolean supportsGeneratedKeysOfAnyColumn() {
+        // only the AUTO_INCREMENT column is returned.
+        return false;
+    }
+
+    /**
+     * Matches the version of MariaDB; MySQL drivers report it prefixed by the fake <code>5.5.5-</code> version.
+     */
+    private static final Pattern MARIADB_VERSION = Pattern.compile("(?:5\\.5\\.5-)?(\\d+)\\.(\\d+).*MariaDB.*");
+
+    @Override
+    public boolean supportsWindowFunctions(@NotNull Handle handle) {
+        // window functions are available since MySQL 8.0 and MariaDB 10.2.
+        try {
+            final DatabaseMetaData metaData = handle.getConnection().getMetaData();
+            final Matcher mariadb = MARIADB_VERSION.matcher(metaData.getDatabaseProductVersion());
+            if (mariadb.matches()) {
+                final int major = Integer.parseInt(mariadb.group(1));
+                return major > 10 || (major == 10 && Integer.parseInt(mariadb.group(2)) >= 2);
+            }
+            return metaData.getDatabaseMajorVersion() >= 8;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    @NotNull
+    public String exists(@NotNull String select) {
+        return "SELECT EXISTS(" + select + ")";
+    }
+
+    @Override
+    @Nullable
+    public String rowCountEstimate(@NotNull String table) {
+        // InnoDB only provides an estimate, which is exactly what's needed here.
+        return "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = :table";
+    }
+
+    @Override
+    @NotNull
+    public String upsert(@NotNull String table, @NotNull List<String> columns, @NotNull List<String> idColumns) {
+        final List<String> updatedColumns = new ArrayList<>(columns);
+        updatedColumns.removeAll(idColumns);
+        if (updatedColumns.isEmpty()) {
+            // there is nothing to update, but the clause can't be empty. Use a no-op update.
+            updatedColumns.add(idColumns.get(0));
+        }
+        // the VALUES() function is deprecated in MySQL 8.0.20+ but the row alias replacing it is not supported by MariaDB.
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(it -> "?").collect(Collectors.joining(", ")) + ") ON DUPLICATE KEY UPDATE "
+                + updatedColumns.stream().map(it -> it + " = VALUES(" + it + ")").collect(Collectors.joining(", "));
+    }
 }
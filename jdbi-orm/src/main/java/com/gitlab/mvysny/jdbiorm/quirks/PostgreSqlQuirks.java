@@ -0,0 +1,27 @@
+package com.gitlab.mvysny.jdbiorm.quirks;
+
+import org.jdbi.v3.core.Handle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Adds PostgreSQL and CockroachDB quirks support.
+ */
+public class PostgreSqlQuirks implements Quirks {
+    @Override
+    public void configure(@NotNull Handle handle) {
+    }
+
+    @Override
+    @NotNull
+    public String exists(@NotNull String select) {
+        return "SELECT EXISTS(" + select + ")";
+    }
+
+    @Override
+    @Nullable
+    public String rowCountEstimate(@NotNull String table) {
+        // to_regclass() resolves the name the same way as unquoted identifiers in SQL: lower-cased, optionally schema-qualified.
+        return "SELECT reltuples FROM pg_class WHERE oid = to_regclass(:table)";
+    }
+}
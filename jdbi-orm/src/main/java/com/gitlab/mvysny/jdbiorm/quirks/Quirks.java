@@ -5,6 +5,10 @@ import org.jdbi.v3.core.config.JdbiConfig;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * Every database has its quirks. This object serves the purpose of configuring
  * JDBI for certain databases in order for JDBI to work properly.
@@ -47,6 +51,102 @@ public interface Quirks {
         return null;
     }
 
+    /**
+     * Whether the JDBC driver is able to return generated keys for all rows inserted
+     * by a JDBC batch. If false, rows with database-generated IDs are inserted one-by-one.
+     * @return true by default.
+     */
+    default boolean supportsBatchGeneratedKeys() {
+        return true;
+    }
+
+    /**
+     * The maximum number of parameters a single SQL statement should reference. Bulk operations
+     * such as {@link com.gitlab.mvysny.jdbiorm.Dao#deleteByIds(java.util.Collection)} split their work into multiple
+     * statements, to stay under this limit.
+     * @return 1000 by default.
+     */
+    default int maxStatementParameters() {
+        return 1000;
+    }
+
+    /**
+     * Whether the database supports the row value constructor in the IN predicate, e.g.
+     * <code>(a, b) IN ((1, 2), (3, 4))</code>. If not, composite keys are matched via
+     * <code>(a = 1 AND b = 2) OR (a = 3 AND b = 4)</code>.
+     * @return true by default.
+     */
+    default boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * Whether JDBC {@link java.sql.Statement#getGeneratedKeys()} is able to return any requested columns of the rows
+     * inserted or updated by the statement, not just the auto-increment ID. Used to fetch the values of
+     * {@link com.gitlab.mvysny.jdbiorm.Generated} columns; if false, they are fetched by a subsequent SELECT.
+     * @return true by default: the PostgreSQL JDBC driver appends <code>RETURNING</code> to the statement.
+     */
+    default boolean supportsGeneratedKeysOfAnyColumn() {
+        return true;
+    }
+
+    /**
+     * Returns the SQL statement which inserts a new row, or updates the existing row if there already is a row
+     * with the same primary key. The default implementation uses the PostgreSQL syntax
+     * <code>INSERT ... ON CONFLICT (id) DO UPDATE SET ...</code>, also supported by CockroachDB.
+     * @param table the database table name, not null.
+     * @param columns all columns to be inserted, including the primary key columns. The statement must reference the value of every column
+     *                exactly once, as a positional <code>?</code> parameter, in this order.
+     * @param idColumns the primary key columns, a subset of {@code columns}.
+     * @return the upsert SQL statement, not null.
+     */
+    @NotNull
+    default String upsert(@NotNull String table, @NotNull List<String> columns, @NotNull List<String> idColumns) {
+        final List<String> updatedColumns = new ArrayList<>(columns);
+        updatedColumns.removeAll(idColumns);
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(it -> "?").collect(Collectors.joining(", ")) + ") ON CONFLICT ("
+                + String.join(", ", idColumns) + ") "
+                + (updatedColumns.isEmpty() ? "DO NOTHING" : "DO UPDATE SET " + updatedColumns.stream().map(it -> it + " = EXCLUDED." + it).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Wraps given query into a query which checks whether the query returns any rows. Unlike <code>count(*)</code>,
+     * the database stops at the first row found.
+     * @param select the query, e.g. <code>select 1 from Person where name = :name</code>, not null.
+     * @return a query returning exactly one row with one column, mappable to {@link Boolean}, e.g. <code>SELECT EXISTS(select)</code>.
+     * Null by default: the query is then limited to one row via {@link #offsetLimit(Long, Long)}, which works with any database,
+     * and checked for whether it returns a row.
+     */
+    @Nullable
+    default String exists(@NotNull String select) {
+        return null;
+    }
+
+    /**
+     * Whether the database supports window functions such as <code>COUNT(*) OVER()</code>, which allow
+     * {@link com.gitlab.mvysny.jdbiorm.DaoOfAny#findPage(com.gitlab.mvysny.jdbiorm.condition.Condition, List, Long, Long)}
+     * to fetch the rows and their total count in a single statement.
+     * @param handle the handle, may be used to check the database version. Not null.
+     * @return true by default.
+     */
+    default boolean supportsWindowFunctions(@NotNull Handle handle) {
+        return true;
+    }
+
+    /**
+     * Returns the SQL query which reads the approximate number of rows of given table from the database statistics, without
+     * scanning the table. The query must return one row with one numeric column, and may reference the <code>:table</code> parameter
+     * which is bound to the table name.
+     * @param table the database table name, not null.
+     * @return the SQL query; null if the database doesn't provide the estimate, in such case the rows are counted exactly.
+     * Null by default.
+     */
+    @Nullable
+    default String rowCountEstimate(@NotNull String table) {
+        return null;
+    }
+
     /**
      * Default implementation which does nothing.
      */
@@ -2,12 +2,21 @@
 
 package com.gitlab.mvysny.jdbiorm
 
+import com.gitlab.mvysny.jdbiorm.jdbi.FieldMapper
+import org.jdbi.v3.core.mapper.ColumnMapper
+import org.jdbi.v3.core.mapper.ColumnMappers
+import org.jdbi.v3.core.mapper.PropagateNull
+import org.jdbi.v3.core.result.UnableToProduceResultException
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Nested
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
+import jakarta.validation.ConstraintViolationException
 import java.lang.IllegalStateException
 import java.lang.Long
 import java.sql.Timestamp
+import java.time.Duration
 import java.time.Instant
 import java.time.LocalDate
 import java.time.temporal.ChronoField
@@ -18,8 +27,37 @@ abstract class AbstractMappingTests {
     @Nested inner class PersonTests : AbstractPersonTests2()
     @Nested inner class AliasedIdTests : AbstractAliasedIdTests()
     @Nested inner class NaturalPersonTests : AbstractNaturalPersonTests()
+    @Nested inner class TrackedNaturalPersonTests : AbstractTrackedNaturalPersonTests()
     @Nested inner class LogRecordTests : AbstractLogRecordTests()
+    @Nested inner class VersionedEntityTests : AbstractVersionedEntityTests()
+    @Nested inner class GeneratedColumnsTests : AbstractGeneratedColumnsTests()
     @Nested inner class CompositePKTests : AbstractCompositePKTests()
+    @Nested inner class GeneratedRowMapperTests : AbstractPersonTests2() {
+        @BeforeEach fun enableGeneratedRowMappers() { JdbiOrm.setGeneratedRowMappers(true) }
+        @AfterEach fun disableGeneratedRowMappers() { JdbiOrm.setGeneratedRowMappers(false) }
+        @Test fun primitives() {
+            Person(name = "Zaphod", age = 42, isAlive25 = true).save()
+            Person(name = "Arthur", age = 10).save()
+            val sql = "select id, age, alive from Test order by id"
+            expectList(42 to true, 10 to false) {
+                db { createQuery(sql).map(FieldMapper.of(PrimitiveRow::class.java)).list().map { it.age to it.alive } }
+            }
+            assertThrows<UnableToProduceResultException> {
+                db {
+                    getConfig(ColumnMappers::class.java).coalesceNullPrimitivesToDefaults = false
+                    createQuery(sql).map(FieldMapper.of(PrimitiveRow::class.java)).list()
+                }
+            }
+            expectList(42, null) {
+                db { createQuery(sql).map(FieldMapper.of(PropagateNullPrimitiveRow::class.java)).list().map { it?.age } }
+            }
+        }
+        @Test fun composite() {
+            val p = MappingTable(1, 2, "Zaphod")
+            p.create()
+            expectList(p) { MappingTable.dao.findAll() }
+        }
+    }
     @Nested inner class TypeMappingTests {
         @Test fun `java enum to native db enum`() {
             for (it in MaritalStatus.entries + listOf(null)) {
@@ -115,6 +153,20 @@ abstract class AbstractPersonTests2 {
         expect("Albedo") { p.name }
         expect(130) { p.age }
     }
+    @Test fun `cached mapping honors result set shape and column mappers`() {
+        Person(name = "Zaphod", age = 42).save()
+        expectList("Zaphod") { Person.findAll().map { it.name } }
+        expectList("" to 42) {
+            db { createQuery("select age from Test").map(FieldMapper.of(Person::class.java)).list().map { it.name to it.age } }
+        }
+        expectList("ZAPHOD") {
+            db {
+                registerColumnMapper(String::class.java, ColumnMapper { rs, col, _ -> rs.getString(col).uppercase() })
+                createQuery("select * from Test").map(FieldMapper.of(Person::class.java)).list().map { it.name }
+            }
+        }
+        expectList("Zaphod") { Person.findAll().map { it.name } }
+    }
 }
 
 abstract class AbstractAliasedIdTests {
@@ -217,6 +269,103 @@ abstract class AbstractNaturalPersonTests {
         NaturalPerson(id = "aaa", name = "Nigredo", bytes = byteArrayOf(5)).create()
         expectList("Rubedo", "Nigredo") { NaturalPerson.findAll().map { it.name } }
     }
+    @Test fun upsert() {
+        NaturalPerson.upsert(NaturalPerson(id = "12345678", name = "Albedo", bytes = byteArrayOf(5)))
+        expectList("Albedo") { NaturalPerson.findAll().map { it.name } }
+        NaturalPerson.upsert(NaturalPerson(id = "12345678", name = "Rubedo", bytes = byteArrayOf(6)))
+        expectList("Rubedo") { NaturalPerson.findAll().map { it.name } }
+        expect(6) { NaturalPerson.getById("12345678").bytes[0].toInt() }
+    }
+    @Test fun upsertAll() {
+        NaturalPerson(id = "aaa", name = "Albedo", bytes = byteArrayOf(5)).create()
+        NaturalPerson.upsertAll(listOf(NaturalPerson(id = "aaa", name = "Rubedo", bytes = byteArrayOf(5)),
+            NaturalPerson(id = "bbb", name = "Nigredo", bytes = byteArrayOf(5))))
+        expect(listOf("Nigredo", "Rubedo")) { NaturalPerson.findAll().map { it.name }.sorted() }
+    }
+    @Nested inner class WriteBehindTests {
+        private fun writer(flushSize: Int = 100): WriteBehindDao<NaturalPerson, String> =
+            WriteBehindDao(NaturalPerson, 100, flushSize, Duration.ofHours(1))
+
+        @Test fun coalescing() {
+            writer().use { writer ->
+                val p = NaturalPerson(id = "aaa", name = "Albedo", bytes = byteArrayOf(5))
+                writer.create(p)
+                p.name = "Rubedo"
+                writer.save(p)
+                p.name = "Nigredo"  // the entity has been cloned
+                writer.create(NaturalPerson(id = "bbb", name = "Citrinitas"))
+                writer.deleteById("bbb")
+                expect(2) { writer.queueDepth }
+                expectList() { NaturalPerson.findAll() }
+                writer.flush()
+                expectList("Rubedo") { NaturalPerson.findAll().map { it.name } }
+                val metrics = writer.metrics
+                expect(0) { metrics.queueDepth }
+                expect(4) { metrics.queued }
+                expect(2) { metrics.coalesced }
+                expect(2) { metrics.written }
+                expect(1) { metrics.flushes }
+            }
+        }
+        @Test fun deleteThenCreate() {
+            NaturalPerson(id = "aaa", name = "Albedo").create()
+            writer().use { writer ->
+                writer.deleteById("aaa")
+                writer.create(NaturalPerson(id = "aaa", name = "Rubedo"))
+                writer.create(NaturalPerson(id = "bbb", name = "Nigredo"))
+            }
+            expect(listOf("Nigredo", "Rubedo")) { NaturalPerson.findAll().map { it.name }.sorted() }
+        }
+        @Test fun deleteThenCreateThenSave() {
+            // the row doesn't exist: the delete is a no-op and the coalesced write must still insert the row.
+            writer().use { writer ->
+                writer.deleteById("aaa")
+                val p = NaturalPerson(id = "aaa", name = "Rubedo")
+                writer.create(p)
+                p.name = "Nigredo"
+                writer.save(p)
+                expect(1) { writer.queueDepth }
+            }
+            expectList("Nigredo") { NaturalPerson.findAll().map { it.name } }
+        }
+        @Test fun flushesInBackgroundWhenFlushSizeReached() {
+            writer(2).use { writer ->
+                writer.create(NaturalPerson(id = "aaa", name = "Albedo"))
+                writer.create(NaturalPerson(id = "bbb", name = "Rubedo"))
+                val deadline = System.currentTimeMillis() + 10000
+                while (NaturalPerson.count() < 2 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10)
+                }
+                expect(2) { NaturalPerson.count() }
+            }
+        }
+        @Test fun failedFlush() {
+            writer().use { writer ->
+                writer.save(NaturalPerson(id = "aaa", name = "Albedo"))
+                assertThrows<IllegalStateException> { writer.flush() }
+                expect(1) { writer.metrics.failedFlushes }
+                expect(0) { writer.queueDepth }
+            }
+        }
+        @Test fun validates() {
+            writer().use { writer ->
+                assertThrows<IllegalArgumentException> { writer.save(NaturalPerson(name = "Albedo")) }
+                WriteBehindDao(Person).use { personWriter ->
+                    assertThrows<ConstraintViolationException> { personWriter.save(Person(id = 1, name = "")) }
+                }
+            }
+        }
+        @Test fun closedRejectsWrites() {
+            val writer = writer()
+            writer.create(NaturalPerson(id = "aaa", name = "Albedo"))
+            writer.close()
+            expectList("Albedo") { NaturalPerson.findAll().map { it.name } }
+            assertThrows<IllegalStateException> { writer.deleteById("aaa") }
+        }
+    }
+    @Test fun upsertValidates() {
+        assertThrows<ConstraintViolationException> { Person.upsert(Person(id = 1, name = "")) }
+    }
     @Test fun delete() {
         val p = NaturalPerson(id = "foo", name = "Albedo", bytes = byteArrayOf(5))
         p.create()
@@ -233,6 +382,76 @@ abstract class AbstractNaturalPersonTests {
     }
 }
 
+abstract class AbstractTrackedNaturalPersonTests {
+    private val meta = EntityMeta.of(TrackedNaturalPerson::class.java)
+
+    @Test fun `untracked entities have no snapshot`() {
+        expect(false) { EntityMeta.of(NaturalPerson::class.java).isDirtyTracking }
+        val p = NaturalPerson(id = "foo", name = "Albedo", bytes = byteArrayOf(5))
+        p.create()
+        expect(null) { EntityMeta.of(NaturalPerson::class.java).getDirtyProperties(NaturalPerson.getById("foo")) }
+    }
+    @Test fun `loaded entity is snapshot`() {
+        TrackedNaturalPerson(id = "foo", name = "Albedo", bytes = byteArrayOf(5)).create()
+        val p = TrackedNaturalPerson.getById("foo")
+        expectList() { meta.getDirtyProperties(p)!! }
+        p.name = "Rubedo"
+        p.bytes[0] = 6
+        expect(listOf("name", "bytes")) { meta.getDirtyProperties(p)!!.map { it.name.name } }
+    }
+    @Test fun `save updates only modified columns`() {
+        TrackedNaturalPerson(id = "foo", name = "Albedo", bytes = byteArrayOf(5)).create()
+        val p = TrackedNaturalPerson.getById("foo")
+        // modify the row behind the back of p
+        NaturalPerson.getById("foo").apply { bytes = byteArrayOf(7) }.save()
+        p.name = "Rubedo"
+        p.save()
+        val row = NaturalPerson.getById("foo")
+        expect("Rubedo") { row.name }
+        expect(7) { row.bytes[0].toInt() }
+        expectList() { meta.getDirtyProperties(p)!! }
+    }
+    @Test fun `save without modifications does nothing`() {
+        TrackedNaturalPerson(id = "foo", name = "Albedo", bytes = byteArrayOf(5)).create()
+        val p = TrackedNaturalPerson.getById("foo")
+        NaturalPerson.deleteAll()
+        p.save()  // would fail with "We expected to update only one row" if UPDATE was executed
+        expectList() { NaturalPerson.findAll() }
+    }
+    @Test fun `reverting a change after save is saved`() {
+        TrackedNaturalPerson(id = "foo", name = "Albedo", bytes = byteArrayOf(5)).create()
+        val p = TrackedNaturalPerson.getById("foo")
+        p.name = "Rubedo"
+        p.save()
+        p.name = "Albedo"
+        p.save()
+        expect("Albedo") { NaturalPerson.getById("foo").name }
+    }
+    @Test fun `rolled back save is saved in full`() {
+        TrackedNaturalPerson(id = "foo", name = "Albedo", bytes = byteArrayOf(5)).create()
+        val p = TrackedNaturalPerson.getById("foo")
+        assertThrows<RuntimeException> {
+            db {
+                p.name = "Rubedo"
+                p.save()
+                throw RuntimeException("rollback")
+            }
+        }
+        expect("Albedo") { NaturalPerson.getById("foo").name }
+        expect(null) { meta.getDirtyProperties(p) }
+        p.save()
+        expect("Rubedo") { NaturalPerson.getById("foo").name }
+    }
+    @Test fun reload() {
+        val p = TrackedNaturalPerson(id = "foo", name = "Albedo", bytes = byteArrayOf(5))
+        p.create()
+        p.name = "Nigredo"
+        p.reload()
+        expect("Albedo") { p.name }
+        expectList() { meta.getDirtyProperties(p)!! }
+    }
+}
+
 abstract class AbstractLogRecordTests {
     @Test fun `save succeeds since create() auto-generates ID`() {
         val p = LogRecord(text = "foo")
@@ -269,6 +488,86 @@ abstract class AbstractLogRecordTests {
     }
 }
 
+abstract class AbstractVersionedEntityTests {
+    @Test fun `create initializes version`() {
+        val p = VersionedEntity(name = "Albedo")
+        p.save()
+        expect(0L) { p.version }
+        expect(0L) { VersionedEntity.getById(p.id!!).version }
+    }
+    @Test fun `save increments version`() {
+        val p = VersionedEntity(name = "Albedo")
+        p.save()
+        p.name = "Rubedo"
+        p.save()
+        expect(1L) { p.version }
+        expect(VersionedEntity(p.id, "Rubedo", 1L)) { VersionedEntity.getById(p.id!!) }
+    }
+    @Test fun `saving stale entity fails`() {
+        val p = VersionedEntity(name = "Albedo")
+        p.save()
+        val stale = VersionedEntity.getById(p.id!!)
+        p.name = "Rubedo"
+        p.save()
+        stale.name = "Nigredo"
+        expectThrows<OptimisticLockException>("has been modified or deleted in the meantime") { stale.save() }
+        expect(0L) { stale.version }
+        expect(VersionedEntity(p.id, "Rubedo", 1L)) { VersionedEntity.getById(p.id!!) }
+    }
+    @Test fun `saving deleted entity fails`() {
+        val p = VersionedEntity(name = "Albedo")
+        p.save()
+        VersionedEntity.deleteAll()
+        expectThrows<OptimisticLockException>("has been modified or deleted in the meantime") { p.save() }
+    }
+    @Test fun `saveAll with stale entity fails and rolls back versions`() {
+        val p1 = VersionedEntity(name = "Albedo")
+        val p2 = VersionedEntity(name = "Rubedo")
+        VersionedEntity.createAll(listOf(p1, p2))
+        VersionedEntity.getById(p2.id!!).save()
+        expectThrows<OptimisticLockException>("1 entities have been modified") { VersionedEntity.saveAll(listOf(p1, p2)) }
+        expect(0L) { p1.version }
+        expect(0L) { p2.version }
+        expect(0L) { VersionedEntity.getById(p1.id!!).version }
+    }
+    @Test fun `upserting stale entity fails`() {
+        val p = VersionedEntity(name = "Albedo")
+        p.save()
+        val stale = VersionedEntity.getById(p.id!!)
+        p.name = "Rubedo"
+        p.save()
+        stale.name = "Nigredo"
+        expectThrows<UnsupportedOperationException>("upsert can't check the version") { VersionedEntity.upsert(stale) }
+        expectThrows<UnsupportedOperationException>("upsert can't check the version") { VersionedEntity.upsertAll(listOf(stale)) }
+        expect(VersionedEntity(p.id, "Rubedo", 1L)) { VersionedEntity.getById(p.id!!) }
+    }
+}
+
+abstract class AbstractGeneratedColumnsTests {
+    @Test fun `create fetches generated columns`() {
+        val p = GeneratedColumnsEntity(name = "Albedo", counter = 5)
+        p.create()
+        expect(GeneratedColumnsEntity(p.id!!, "Albedo", 42, 6)) { p }
+        expectList(p) { GeneratedColumnsEntity.findAll() }
+    }
+    @Test fun `save fetches generated columns`() {
+        val p = GeneratedColumnsEntity(name = "Albedo")
+        p.save()
+        p.name = "Nigredo"
+        p.counter = 5
+        p.save()
+        expect(GeneratedColumnsEntity(p.id!!, "Nigredo", 42, 7)) { p }
+        expectList(p) { GeneratedColumnsEntity.findAll() }
+    }
+    @Test fun `createAll fetches generated columns`() {
+        val entities = listOf(GeneratedColumnsEntity(name = "Albedo"), GeneratedColumnsEntity(name = "Rubedo2"))
+        GeneratedColumnsEntity.createAll(entities)
+        expect(listOf(6, 7)) { entities.map { it.nameLength } }
+        expect(listOf(42, 42)) { entities.map { it.counter } }
+        expect(entities.toSet()) { GeneratedColumnsEntity.findAll().toSet() }
+    }
+}
+
 val Instant.withZeroNanos: Instant get() = with(ChronoField.NANO_OF_SECOND, get(ChronoField.MILLI_OF_SECOND).toLong() * 1000000)
 // MSSQL nulls out millis for some reason when running on CI
 val Date.withZeroMillis: Date get() {
@@ -276,3 +575,7 @@ val Date.withZeroMillis: Date get() {
     result.nanos = 0
     return result
 }
+
+class PrimitiveRow(var id: kotlin.Long = 0, var age: Int = 0, var alive: Boolean = false)
+
+class PropagateNullPrimitiveRow(var id: kotlin.Long = 0, var age: Int = 0, @field:PropagateNull var alive: Boolean = false)
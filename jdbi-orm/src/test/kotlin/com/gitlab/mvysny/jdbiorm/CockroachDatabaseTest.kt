@@ -39,6 +39,8 @@ class CockroachDatabaseTest {
             ddl("""create table if not exists EntityWithAliasedId(myid bigserial primary key, name varchar(400) not null)""")
             ddl("""create table if not exists NaturalPerson(id varchar(10) primary key, name varchar(400) not null, bytes bytea not null)""")
             ddl("""create table if not exists LogRecord(id UUID primary key, text varchar(400) not null)""")
+            ddl("""create table if not exists VersionedEntity(id bigserial primary key, name varchar(400) not null, version bigint not null)""")
+            ddl("""create table if not exists GeneratedColumnsEntity(id bigserial primary key, name varchar(400) not null, counter int default 42 not null, name_length int as (length(name)) stored)""")
             ddl("""CREATE TYPE marital_status AS ENUM ('Single', 'Married', 'Widowed', 'Divorced')""")
             ddl("""CREATE TABLE IF NOT EXISTS TypeMappingEntity(id bigserial primary key, enumTest marital_status)""")
             ddl("""create table JOIN_TABLE(customerId integer, orderId integer)""")
@@ -1,12 +1,20 @@
 package com.gitlab.mvysny.jdbiorm
 
+import com.gitlab.mvysny.jdbiorm.condition.AggregateFunction
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Nested
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
 import kotlin.test.expect
 
 abstract class AbstractDaoOfJoinTests {
     @Nested inner class JoinOutcomeTests : AbstractJoinOutcomeTests()
     @Nested inner class NestedJoinOutcomeTests : AbstractNestedJoinOutcomeTests()
+    @Nested inner class GeneratedRowMapperNestedJoinOutcomeTests : AbstractNestedJoinOutcomeTests() {
+        @BeforeEach fun enableGeneratedRowMappers() { JdbiOrm.setGeneratedRowMappers(true) }
+        @AfterEach fun disableGeneratedRowMappers() { JdbiOrm.setGeneratedRowMappers(false) }
+    }
 }
 
 abstract class AbstractNestedJoinOutcomeTests() {
@@ -77,6 +85,114 @@ abstract class AbstractNestedJoinOutcomeTests() {
         expect(d) { joinOutcomes[0].department }
     }
 
+    @Test fun stream() {
+        val p = Person2(name = "Foo")
+        p.create()
+        val d = EntityWithAliasedId("My department")
+        d.create()
+        MappingTable(p.id!!, d.id!!, "").create()
+
+        NestedJoinOutcome.dao.stream(Person2.NAME.eq("Foo"), Person2.ID.desc()).use { stream ->
+            val joinOutcomes = stream.toList()
+            expect(1) { joinOutcomes.size }
+            expect(p) { joinOutcomes[0].person }
+            expect(d) { joinOutcomes[0].department }
+        }
+        NestedJoinOutcome.dao.stream(NestedJoinOutcome.DEPARTMENT_NAME.eq("Foo")).use { stream ->
+            expectList() { stream.toList() }
+        }
+    }
+
+    @Test fun findPageAfter() {
+        val d = EntityWithAliasedId("My department")
+        d.create()
+        val persons = (0 until 5).map { Person2(name = "Foo$it") }
+        persons.forEach { it.create(); MappingTable(it.id!!, d.id!!, "").create() }
+
+        val order = listOf(NestedJoinOutcome.DEPARTMENT_NAME.asc(), Person2.ID.desc())
+        val page = NestedJoinOutcome.dao.findPageAfter(null, order, null, 3)
+        expect(persons.reversed().take(3)) { page.items.map { it.person } }
+        val page2 = NestedJoinOutcome.dao.findPageAfter(null, order, page.nextCursor, 3)
+        expect(persons.reversed().drop(3)) { page2.items.map { it.person } }
+        expect(null) { page2.nextCursor }
+        assertThrows<IllegalArgumentException> { NestedJoinOutcome.dao.findPageAfter(null, listOf(), null, 3) }
+    }
+
+    @Test fun findPage() {
+        val d = EntityWithAliasedId("My department")
+        d.create()
+        val d2 = EntityWithAliasedId("Other department")
+        d2.create()
+        val persons = (0 until 5).map { Person2(name = "Foo$it") }
+        persons.forEach { it.create(); MappingTable(it.id!!, d.id!!, "").create() }
+
+        val order = listOf(Person2.ID.desc())
+        val page = NestedJoinOutcome.dao.findPage(null, order, 1L, 3L)
+        expect(persons.reversed().drop(1).take(3)) { page.items.map { it.person } }
+        expect(5) { page.total }
+        val page2 = NestedJoinOutcome.dao.findPage(NestedJoinOutcome.DEPARTMENT_NAME.eq("Other department"), order, 0L, 3L)
+        expectList() { page2.items }
+        expect(0) { page2.total }
+
+        // the window function would count the duplicate rows removed by DISTINCT
+        MappingTable(persons[0].id!!, d2.id!!, "").create()
+        val departments = DaoOfJoin(EntityWithAliasedId::class.java, "select distinct d.* from EntityWithAliasedId d join mapping_table m on m.department_id = d.myid")
+        val page3 = departments.findPage(null, listOf(NestedJoinOutcome.DEPARTMENT_ID.asc()), 0L, 1L)
+        expect(listOf(d)) { page3.items }
+        expect(2) { page3.total }
+    }
+
+    @Test fun countStrategies() {
+        val d = EntityWithAliasedId("My department")
+        d.create()
+        val persons = (0 until 5).map { Person2(name = "Foo$it") }
+        persons.forEach { it.create(); MappingTable(it.id!!, d.id!!, "").create() }
+        Person2(name = "Unassigned").create()
+
+        val sql = "select Test.*, (select count(*) from mapping_table m2 where m2.person_id = Test.id) as \"from\", d.myid as department_myid, d.name as department_name\n" +
+                "FROM Test join mapping_table m on Test.id = m.person_id join EntityWithAliasedId d on m.department_id = d.myid"
+        val daos = listOf(
+            DaoOfJoin(NestedJoinOutcome::class.java, sql, DaoOfJoin.CountStrategy.SELECT_ONE),
+            DaoOfJoin(NestedJoinOutcome::class.java, sql, "select count(*) FROM Test join mapping_table m on Test.id = m.person_id join EntityWithAliasedId d on m.department_id = d.myid")
+        )
+        for (dao in daos) {
+            expect(5) { dao.count() }
+            expect(2) { dao.countBy(Person2.NAME.`in`("Foo1", "Foo3", "Unassigned")) }
+            expect(1) { dao.countBy(NestedJoinOutcome.DEPARTMENT_NAME.eq("My department").and(Person2.NAME.eq("Foo0"))) }
+            val page = dao.findPage(null, listOf(Person2.ID.asc()), 0L, 2L)
+            expect(persons.take(2)) { page.items.map { it.person } }
+            expect(5) { page.total }
+        }
+        assertThrows<IllegalArgumentException> {
+            DaoOfJoin(EntityWithAliasedId::class.java, "select distinct d.* from EntityWithAliasedId d", DaoOfJoin.CountStrategy.SELECT_ONE)
+        }
+    }
+
+    @Test fun aggregate() {
+        val d = EntityWithAliasedId("My department")
+        d.create()
+        val d2 = EntityWithAliasedId("Other department")
+        d2.create()
+        (0 until 5).map { Person2(name = "Foo$it") }.forEach { it.create(); MappingTable(it.id!!, (if (it.name == "Foo0") d2 else d).id!!, "").create() }
+
+        val rows = NestedJoinOutcome.dao.aggregate()
+            .groupBy(NestedJoinOutcome.DEPARTMENT_NAME)
+            .count()
+            .orderBy(NestedJoinOutcome.DEPARTMENT_NAME.asc())
+            .list()
+        expect(listOf("My department" to 4L, "Other department" to 1L)) { rows.map { it.get(NestedJoinOutcome.DEPARTMENT_NAME) to it.get(AggregateFunction.countAll()) } }
+        val distinct = DaoOfJoin(EntityWithAliasedId::class.java, "select distinct d.* from EntityWithAliasedId d")
+        assertThrows<UnsupportedOperationException> { distinct.aggregate().count().list() }
+    }
+
+    @Test fun projectionsNotSupported() {
+        assertThrows<UnsupportedOperationException> { NestedJoinOutcome.dao.findValues(Person2.NAME, null) }
+    }
+
+    @Test fun parallelScanNotSupported() {
+        assertThrows<UnsupportedOperationException> { NestedJoinOutcome.dao.parallelScan(null, 2) {} }
+    }
+
     @Test fun count() {
         expect(0) { NestedJoinOutcome.dao.count() }
 
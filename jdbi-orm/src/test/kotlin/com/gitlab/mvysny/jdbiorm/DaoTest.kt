@@ -1,11 +1,24 @@
 package com.gitlab.mvysny.jdbiorm
 
+import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Nested
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import com.gitlab.mvysny.jdbiorm.condition.AggregateFunction
+import com.gitlab.mvysny.jdbiorm.condition.Condition
+import com.gitlab.mvysny.jdbiorm.condition.Expression
+import com.gitlab.mvysny.jdbiorm.quirks.Quirks
+import jakarta.validation.ConstraintViolationException
+import org.jdbi.v3.core.Handle
+import org.jdbi.v3.core.statement.SqlLogger
+import org.jdbi.v3.core.statement.SqlStatements
+import org.jdbi.v3.core.statement.StatementContext
 import java.lang.IllegalStateException
+import java.time.Duration
 import java.time.Instant
 import java.time.LocalDate
 import java.util.*
+import kotlin.concurrent.thread
 import kotlin.test.expect
 
 abstract class AbstractDbDaoTests {
@@ -153,11 +166,564 @@ abstract class AbstractPersonTests {
             expect(listOf()) { Person.findAll() }
         }
     }
+    @Nested inner class ReloadAllTests {
+        @Test fun empty() {
+            Person.reloadAll(listOf())
+        }
+        @Test fun reloadsAllEntities() {
+            val persons = (0 until 50).map { Person(name = "Albedo$it", age = it, maritalStatus = MaritalStatus.Single) }
+            Person.createAll(persons)
+            Person.updateBy(null, mapOf<Property<*>, Expression<*>>(Person.NAME to Person.NAME.lower(), Person.MARITALSTATUS to Expression.Value(MaritalStatus.Married)))
+            val copy = persons[0].copy(name = "foo")
+            Person.reloadAll(persons + copy)
+            expect((0 until 50).map { "albedo$it" }) { persons.map { it.name } }
+            expect(MaritalStatus.Married) { persons[7].maritalStatus }
+            expect("albedo0") { copy.name }
+            expect(persons.map { it.withZeroNanos() }) { Person.findAll(listOf(Person.AGE.asc()), null, null).map { it.withZeroNanos() } }
+        }
+        @Test fun chunks() {
+            val batchSize = JdbiOrm.getBatchSize()
+            JdbiOrm.setBatchSize(7)
+            try {
+                val persons = (0 until 20).map { Person(name = "Albedo$it", age = it) }
+                Person.createAll(persons)
+                persons.forEach { it.name = "" }
+                Person.reloadAll(persons)
+                expect((0 until 20).map { "Albedo$it" }) { persons.map { it.name } }
+            } finally {
+                JdbiOrm.setBatchSize(batchSize)
+            }
+        }
+        @Test fun missingRows() {
+            val persons = (0 until 3).map { Person(name = "Albedo$it", age = it) }
+            Person.createAll(persons)
+            Person.deleteById(persons[1].id!!)
+            persons.forEach { it.age = 100 }
+            expectThrows<IllegalStateException>("There is no Person for ids [${persons[1].id}]") { Person.reloadAll(persons) }
+            expect(listOf(0, 100, 2)) { persons.map { it.age } }
+            expect(listOf(persons[1])) { Person.reloadAll(persons, false) }
+        }
+        @Test fun nullIdFails() {
+            assertThrows<IllegalStateException> { Person.reloadAll(listOf(Person(name = "Albedo"))) }
+        }
+    }
+    @Nested inner class StreamTests {
+        @Test fun empty() {
+            Person.stream(null).use { stream -> expectList() { stream.toList() } }
+        }
+        @Test fun streamsMatchingRowsInOrder() {
+            Person.createAll((0 until 50).map { Person(name = "Albedo$it", age = it) })
+            Person.stream(Person.AGE.ge(10), listOf(Person.AGE.desc()), 7).use { stream ->
+                expect((49 downTo 10).toList()) { stream.map { it.age }.toList() }
+            }
+            Person.stream("age < :age", "age ASC", 3) { it.bind("age", 3) }.use { stream ->
+                expect(listOf("Albedo0", "Albedo1", "Albedo2")) { stream.map { it.name }.toList() }
+            }
+        }
+        @Test fun iterator() {
+            Person.createAll((0 until 5).map { Person(name = "Albedo$it", age = it) })
+            Person.iterator(null, listOf(Person.AGE.asc())).use { iterator ->
+                expect((0 until 5).toList()) { iterator.asSequence().map { it.age }.toList() }
+            }
+        }
+        @Test fun partialConsumptionReleasesConnection() {
+            Person.createAll((0 until 20).map { Person(name = "Albedo$it", age = it) })
+            // would exhaust the connection pool if the handles weren't closed.
+            repeat(50) {
+                Person.stream(null, listOf(), 2).use { stream -> expect(2) { stream.limit(2).count() } }
+            }
+        }
+        @Test fun fetchSizeIsPassedToDriver() {
+            Person.createAll((0 until 5).map { Person(name = "Albedo$it", age = it) })
+            Person.iterator(null, null, 3) {}.use { iterator ->
+                expect(3) { iterator.context.statement.fetchSize }
+            }
+        }
+        @Test fun invalidFetchSize() {
+            assertThrows<IllegalArgumentException> { Person.stream(null, listOf(), 0) }
+            assertThrows<IllegalArgumentException> { JdbiOrm.setFetchSize(0) }
+        }
+    }
+
+    @Nested inner class CountEstimateTests {
+        @Test fun countEstimate() {
+            expect(0) { Person.dao.countEstimate(null) }
+            Person.createAll((0 until 50).map { Person(name = "Albedo$it", age = it) })
+            // the planner statistics are not exact
+            expect(true) { Person.dao.countEstimate(null) in 25..100 }
+            expect(40) { Person.dao.countEstimate(Person.AGE.ge(10)) }
+        }
+        @Test fun countCached() {
+            val ttl = Duration.ofHours(1)
+            Person.createAll((0 until 10).map { Person(name = "Albedo$it", age = it) })
+            expect(10) { Person.dao.countCached(null, ttl) }
+            expect(5) { Person.dao.countCached(Person.AGE.ge(5), ttl) }
+            // modifications bypassing the DAO are not noticed until the count expires
+            db { createUpdate("insert into Test (name, age) values ('Nigredo', 100)").execute() }
+            expect(10) { Person.dao.countCached(null, ttl) }
+            expect(5) { Person.dao.countCached(Person.AGE.ge(5), ttl) }
+            // modifications via the DAO invalidate the cache
+            Person(name = "Rubedo", age = 200).save()
+            expect(12) { Person.dao.countCached(null, ttl) }
+            expect(7) { Person.dao.countCached(Person.AGE.ge(5), ttl) }
+            Person.deleteBy(Person.AGE.ge(100))
+            expect(10) { Person.dao.countCached(null, ttl) }
+            Person.deleteAll()
+            expect(0) { Person.dao.countCached(null, ttl) }
+            assertThrows<IllegalArgumentException> { Person.dao.countCached(null, Duration.ZERO) }
+        }
+        @Test fun `countCached is invalidated on commit`() {
+            val ttl = Duration.ofHours(1)
+            expect(0) { Person.dao.countCached(null, ttl) }
+            db {
+                Person(name = "Albedo", age = 1).save()
+                // another connection doesn't see the uncommitted row yet and caches the old count
+                var count = -1L
+                thread { count = Person.dao.countCached(null, ttl) }.join()
+                expect(0) { count }
+            }
+            expect(1) { Person.dao.countCached(null, ttl) }
+        }
+    }
+
+    @Nested inner class ParallelScanTests {
+        private fun scan(where: Condition?, strategy: DaoOfAny.PartitionStrategy, partitions: Int, chunkSize: Int): List<List<Person>> {
+            val chunks = Collections.synchronizedList(mutableListOf<List<Person>>())
+            Person.dao.parallelScan(where, strategy, partitions, chunkSize) { chunks.add(it) }
+            return chunks
+        }
+        @Test fun empty() {
+            expectList() { scan(null, DaoOfAny.PartitionStrategy.ID_RANGE, 4, 10) }
+            expectList() { scan(null, DaoOfAny.PartitionStrategy.ID_MODULO, 4, 10) }
+        }
+        @Test fun scansAllMatchingRows() {
+            Person.createAll((0 until 100).map { Person(name = "Albedo$it", age = it) })
+            for (strategy in DaoOfAny.PartitionStrategy.entries) {
+                for (partitions in listOf(1, 3, 200)) {
+                    val chunks = scan(Person.AGE.ge(10), strategy, partitions, 7)
+                    expect((10 until 100).toList(), "$strategy $partitions") { chunks.flatten().map { it.age }.sorted() }
+                    expect(true) { chunks.all { it.size in 1..7 } }
+                    // every chunk is ordered by ID
+                    expect(true) { chunks.all { chunk -> chunk.map { it.id!! } == chunk.map { it.id!! }.sorted() } }
+                }
+            }
+        }
+        @Test fun failingSinkCancelsScan() {
+            Person.createAll((0 until 100).map { Person(name = "Albedo$it", age = it) })
+            val ex = assertThrows<RuntimeException> {
+                Person.dao.parallelScan(null, DaoOfAny.PartitionStrategy.ID_RANGE, 4, 5) { throw RuntimeException("expected") }
+            }
+            expect("expected") { ex.message }
+        }
+        @Test fun invalidParameters() {
+            assertThrows<IllegalArgumentException> { Person.dao.parallelScan(null, 0) {} }
+            assertThrows<IllegalArgumentException> { Person.dao.parallelScan(null, DaoOfAny.PartitionStrategy.ID_RANGE, 2, 0) {} }
+        }
+    }
+
+    @Nested inner class FindPageAfterTests {
+        private fun KeysetPage<Person>.ages() = items.map { it.age }
+
+        @Test fun empty() {
+            val page = Person.findPageAfter(null, listOf(), null, 10)
+            expectList() { page.items }
+            expect(null) { page.nextCursor }
+        }
+        @Test fun pagesThroughAllRows() {
+            Person.createAll((0 until 25).map { Person(name = "Albedo$it", age = it) })
+            var page = Person.findPageAfter(null, listOf(Person.AGE.desc()), null, 10)
+            expect((24 downTo 15).toList()) { page.ages() }
+            page = Person.findPageAfter(null, listOf(Person.AGE.desc()), page.nextCursor, 10)
+            expect((14 downTo 5).toList()) { page.ages() }
+            page = Person.findPageAfter(null, listOf(Person.AGE.desc()), page.nextCursor, 10)
+            expect((4 downTo 0).toList()) { page.ages() }
+            expect(false) { page.hasNext() }
+        }
+        @Test fun exactlyFullLastPage() {
+            Person.createAll((0 until 4).map { Person(name = "Albedo$it", age = it) })
+            val page = Person.findPageAfter(null, listOf(), null, 2)
+            expect(listOf(0, 1)) { page.ages() }
+            val page2 = Person.findPageAfter(null, listOf(), page.nextCursor, 2)
+            expect(listOf(2, 3)) { page2.ages() }
+            expect(null) { page2.nextCursor }
+        }
+        @Test fun idIsTieBreaker() {
+            val persons = (0 until 10).map { Person(name = "Albedo$it", age = it % 2) }
+            Person.createAll(persons)
+            val expected = persons.sortedWith(compareBy({ it.age }, { it.id!! })).map { it.id }
+            val ids = mutableListOf<Long?>()
+            var cursor: String? = null
+            do {
+                val page = Person.findPageAfter(null, listOf(Person.AGE.asc()), cursor, 3)
+                ids.addAll(page.items.map { it.id })
+                cursor = page.nextCursor
+            } while (cursor != null)
+            expect(expected) { ids }
+        }
+        @Test fun mixedOrderWithCondition() {
+            Person.createAll((0 until 12).map { Person(name = "Albedo${it % 3}", age = it) })
+            val order = listOf(Person.NAME.asc(), Person.AGE.desc())
+            val expected = Person.findAllBy(Person.AGE.ge(2), order).map { it.age }
+            val first = Person.findPageAfter(Person.AGE.ge(2), order, null, 4)
+            val second = Person.findPageAfter(Person.AGE.ge(2), order, first.nextCursor, 4)
+            val third = Person.findPageAfter(Person.AGE.ge(2), order, second.nextCursor, 4)
+            expect(expected) { first.ages() + second.ages() + third.ages() }
+            expect(null) { third.nextCursor }
+        }
+        @Test fun dateKey() {
+            Person.createAll((0 until 5).map { Person(name = "Albedo$it", age = it, created = Date(1_000_000_000_000L + it * 1000L)) })
+            val page = Person.findPageAfter(null, listOf(Person.CREATED.desc()), null, 3)
+            expect(listOf(4, 3, 2)) { page.ages() }
+            expect(listOf(1, 0)) { Person.findPageAfter(null, listOf(Person.CREATED.desc()), page.nextCursor, 3).ages() }
+        }
+        @Test fun invalidCursor() {
+            Person.createAll((0 until 5).map { Person(name = "Albedo$it", age = it) })
+            val cursor = Person.findPageAfter(null, listOf(Person.AGE.asc()), null, 2).nextCursor!!
+            assertThrows<IllegalArgumentException> { Person.findPageAfter(null, listOf(Person.NAME.asc()), cursor, 2) }
+            assertThrows<IllegalArgumentException> { Person.findPageAfter(null, listOf(Person.AGE.desc()), cursor, 2) }
+            assertThrows<IllegalArgumentException> { Person.findPageAfter(null, listOf(), "foo", 2) }
+            assertThrows<IllegalArgumentException> { Person.findPageAfter(null, listOf(), null, 0) }
+        }
+    }
+
+    @Nested inner class FindPageTests {
+        private fun Page<Person>.ages() = items.map { it.age }
+
+        @Test fun empty() {
+            val page = Person.findPage(null, listOf(), 0L, 10L)
+            expectList() { page.items }
+            expect(0) { page.total }
+        }
+        @Test fun pages() {
+            Person.createAll((0 until 25).map { Person(name = "Albedo$it", age = it) })
+            var page = Person.findPage(null, listOf(Person.AGE.desc()), 0L, 10L)
+            expect((24 downTo 15).toList()) { page.ages() }
+            expect(25) { page.total }
+            page = Person.findPage(Person.AGE.ge(5), listOf(Person.AGE.asc()), 10L, 10L)
+            expect((15 until 25).toList()) { page.ages() }
+            expect(20) { page.total }
+            page = Person.findPage(Person.AGE.ge(5), listOf(Person.AGE.asc()), null, null)
+            expect((5 until 25).toList()) { page.ages() }
+            expect(20) { page.total }
+        }
+        @Test fun offsetPastLastRow() {
+            Person.createAll((0 until 5).map { Person(name = "Albedo$it", age = it) })
+            val page = Person.findPage(Person.AGE.ge(1), listOf(Person.AGE.asc()), 10L, 10L)
+            expectList() { page.items }
+            expect(4) { page.total }
+            expect(4) { Person.findPage(Person.AGE.ge(1), listOf(), 0L, 0L).total }
+        }
+        @Test fun withoutWindowFunctions() {
+            Person.createAll((0 until 5).map { Person(name = "Albedo$it", age = it) })
+            val detected = db { Quirks.from(this) }
+            JdbiOrm.quirks = object : Quirks by detected {
+                override fun supportsWindowFunctions(handle: Handle) = false
+            }
+            try {
+                val page = Person.findPage(Person.AGE.ge(1), listOf(Person.AGE.asc()), 1L, 2L)
+                expect(listOf(2, 3)) { page.ages() }
+                expect(4) { page.total }
+            } finally {
+                JdbiOrm.quirks = null
+            }
+        }
+        @Test fun invalidOffsetLimit() {
+            assertThrows<IllegalArgumentException> { Person.findPage(null, listOf(), -1L, 10L) }
+            assertThrows<IllegalArgumentException> { Person.findPage(null, listOf(), 0L, -1L) }
+        }
+    }
+
+    @Nested inner class AggregateTests {
+        @BeforeEach fun createPersons() {
+            Person.createAll((0 until 10).map { Person(name = "Albedo$it", age = it, maritalStatus = if (it % 3 == 0) MaritalStatus.Single else MaritalStatus.Married) })
+        }
+        @Test fun dto() {
+            val stats = Person.dao.aggregate()
+                .groupBy(Person.MARITALSTATUS)
+                .count().sum(Person.AGE).select(Person.AGE.cast("DECIMAL(10, 2)", java.math.BigDecimal::class.java).avg(), "avgAge").min(Person.AGE).max(Person.AGE)
+                .list(AgeStats::class.java)
+            expect(listOf(
+                AgeStats(MaritalStatus.Single, 4, 18, 4.5, 0, 9),
+                AgeStats(MaritalStatus.Married, 6, 27, 4.5, 1, 8)
+            )) { stats.sortedBy { it.maritalStatus } }
+        }
+        @Test fun rows() {
+            val rows = Person.dao.aggregate()
+                .groupBy(Person.MARITALSTATUS)
+                .count().max(Person.AGE)
+                .where(Person.AGE.ge(2))
+                .having(AggregateFunction.countAll().ge(3L))
+                .orderBy(Person.AGE.max(), OrderBy.DESC)
+                .list()
+            expect(listOf(MaritalStatus.Single, MaritalStatus.Married)) { rows.map { it.get(Person.MARITALSTATUS) } }
+            expect(listOf(3L, 5L)) { rows.map { it.get(AggregateFunction.countAll()) } }
+            expect(listOf(9, 8)) { rows.map { it.get(Person.AGE.max()) } }
+            expect(3) { rows[0].size() }
+            assertThrows<IllegalArgumentException> { rows[0].get(Person.AGE.min()) }
+        }
+        @Test fun withoutGroupBy() {
+            val row = Person.dao.aggregate().count().sum(Person.AGE).where(Person.AGE.lt(5)).list().single()
+            expect(5L) { row.get(AggregateFunction.countAll()) }
+            expect(10L) { (row.get(1) as Number).toLong() }
+        }
+        @Test fun nothingSelected() {
+            assertThrows<IllegalStateException> { Person.dao.aggregate().list() }
+        }
+    }
+
+    @Nested inner class FindByIdsTests {
+        @Test fun empty() {
+            expect(mapOf()) { Person.findByIds(listOf()) }
+            expect(setOf()) { Person.findExistingIds(listOf()) }
+        }
+        @Test fun preservesOrderOfIds() {
+            val persons = (0 until 10).map { Person(name = "Albedo$it", age = it) }
+            Person.createAll(persons)
+            val ids = listOf(persons[7].id!!, persons[2].id!!, -1L, persons[5].id!!, persons[2].id!!)
+            val found = Person.findByIds(ids)
+            expect(listOf(persons[7].id, persons[2].id, persons[5].id)) { found.keys.toList() }
+            expect(listOf(7, 2, 5)) { found.values.map { it.age } }
+            expect(listOf(persons[7].id, persons[2].id, persons[5].id)) { Person.findExistingIds(ids).toList() }
+        }
+        @Test fun chunks() {
+            val batchSize = JdbiOrm.getBatchSize()
+            JdbiOrm.setBatchSize(7)
+            try {
+                val persons = (0 until 20).map { Person(name = "Albedo$it", age = it) }
+                Person.createAll(persons)
+                val ids = persons.map { it.id!! }.reversed()
+                expect(ids) { Person.findByIds(ids).keys.toList() }
+                expect(persons.map { it.withZeroNanos() }.reversed()) { Person.findByIds(ids).values.map { it.withZeroNanos() } }
+                expect(ids.toSet()) { Person.findExistingIds(ids + (-5L..-1L)) }
+            } finally {
+                JdbiOrm.setBatchSize(batchSize)
+            }
+        }
+        @Test fun nullIdFails() {
+            assertThrows<NullPointerException> { Person.findByIds(listOf(null)) }
+        }
+    }
+
+    @Nested inner class ProjectionTests {
+        @Test fun empty() {
+            expectList() { Person.findAllProjectedBy(null, listOf(Person.NAME), PersonName::class.java) }
+            expectList() { Person.findValues(Person.NAME, null) }
+        }
+        @Test fun entity() {
+            val p = Person(name = "Albedo", age = 25, maritalStatus = MaritalStatus.Married)
+            p.create()
+            val found = Person.findAllProjectedBy(null, listOf(Person.ID, Person.NAME, Person.ISALIVE25), Person::class.java)
+            expect(listOf(Person(id = p.id, name = "Albedo"))) { found }
+        }
+        @Test fun dto() {
+            Person.createAll((0 until 5).map { Person(name = "Albedo$it", age = it) })
+            expect((3 until 5).map { PersonName("Albedo$it", it) }) {
+                Person.findAllProjectedBy(Person.AGE.ge(3), listOf(Person.AGE.asc()), null, null, listOf(Person.NAME, Person.AGE), PersonName::class.java)
+            }
+            expect(listOf(PersonName("Albedo1", 1))) {
+                Person.findAllProjectedBy(null, listOf(Person.AGE.asc()), 1L, 1L, listOf(Person.NAME, Person.AGE), PersonName::class.java)
+            }
+        }
+        @Test fun values() {
+            Person.createAll((0 until 5).map { Person(name = "Albedo$it", age = it, maritalStatus = if (it % 2 == 0) MaritalStatus.Single else null, created = Date(1_000_000_000_000L + it)) })
+            expect(listOf(4, 3, 2)) { Person.findValues(Person.AGE, Person.AGE.ge(2), listOf(Person.AGE.desc())) }
+            expect(listOf(MaritalStatus.Single, null, MaritalStatus.Single)) { Person.findValues(Person.MARITALSTATUS, Person.AGE.le(2), listOf(Person.AGE.asc())) }
+            expect((0 until 5).map { 1_000_000_000_000L + it }) { Person.findValues(Person.CREATED, null, listOf(Person.AGE.asc())).map { it!!.time } }
+        }
+        @Test fun emptySelectFails() {
+            assertThrows<IllegalArgumentException> { Person.findAllProjectedBy(null, listOf(), PersonName::class.java) }
+        }
+    }
+
+    @Nested inner class DeleteByIdsTests {
+        @Test fun empty() {
+            expect(0) { Person.deleteByIds(listOf()) }
+        }
+        @Test fun simple() {
+            listOf("Albedo", "Nigredo", "Rubedo").forEach { Person(name = it, age = 130).save() }
+            val ids = Person.findAll().filter { it.name != "Nigredo" }.map { it.id!! }
+            expect(2) { Person.deleteByIds(ids + listOf(-1L)) }
+            expect(listOf("Nigredo")) { Person.findAll().map { it.name } }
+        }
+        @Test fun multipleChunks() {
+            val batchSize = JdbiOrm.getBatchSize()
+            JdbiOrm.setBatchSize(7)
+            try {
+                val persons = (0..100).map { Person(name = "Albedo", age = it) }
+                Person.createAll(persons)
+                expect(100) { Person.deleteByIds(persons.filter { it.age > 0 }.map { it.id!! }) }
+                expect(listOf(0)) { Person.findAll().map { it.age } }
+            } finally {
+                JdbiOrm.setBatchSize(batchSize)
+            }
+        }
+    }
     @Test fun deleteBy() {
         listOf("Albedo", "Nigredo", "Rubedo").forEach { Person(name = it, age = 130).save() }
         Person.deleteBy("name = :name") { q -> q.bind("name", "Albedo") }
         expect(listOf("Nigredo", "Rubedo")) { Person.findAll().map { it.name } }
     }
+    @Nested inner class UpdateByTests {
+        @Test fun raw() {
+            listOf("Albedo", "Nigredo", "Rubedo").forEach { Person(name = it, age = 130).save() }
+            expect(1) { Person.updateBy("age = :age", "name = :name") { q -> q.bind("age", 5).bind("name", "Albedo") } }
+            expect(listOf(5, 130, 130)) { Person.findAll(listOf(Person.NAME.asc()), null, null).map { it.age } }
+        }
+        @Test fun condition() {
+            Person(name = "Albedo", age = 130, isAlive25 = true).save()
+            Person(name = "Nigredo", age = 130).save()
+            Person(name = "Rubedo", age = 130).save()
+            expect(2) {
+                Person.updateBy(Person.NAME.eq("Albedo").or(Person.NAME.eq("Nigredo")), mapOf<Property<*>, Expression<*>>(
+                    Person.AGE to Expression.Value(5),
+                    Person.ISALIVE25 to Person.ISALIVE25.coalesce(false)
+                ))
+            }
+            expect(listOf(Triple("Albedo", 5, true), Triple("Nigredo", 5, false), Triple("Rubedo", 130, null))) {
+                Person.findAll(listOf(Person.NAME.asc()), null, null).map { Triple(it.name, it.age, it.isAlive25) }
+            }
+        }
+        @Test fun noCondition() {
+            listOf("Albedo", "Nigredo").forEach { Person(name = it, age = 130).save() }
+            expect(2) { Person.updateBy(null, mapOf<Property<*>, Expression<*>>(Person.NAME to Person.NAME.lower())) }
+            expect(listOf("albedo", "nigredo")) { Person.findAll(listOf(Person.NAME.asc()), null, null).map { it.name } }
+        }
+        @Test fun noMatchingRows() {
+            expect(0) { Person.updateBy(Person.NAME.eq("Albedo"), mapOf<Property<*>, Expression<*>>(Person.AGE to Expression.Value(5))) }
+        }
+        @Test fun emptySetFails() {
+            assertThrows<IllegalArgumentException> { Person.updateBy(null, mapOf()) }
+        }
+    }
+    @Nested inner class CreateAllTests {
+        @Test fun empty() {
+            Person.createAll(listOf())
+            expect(0) { Person.count() }
+        }
+        @Test fun generatedIdsAreStoredBack() {
+            val persons = (0..300).map { Person(name = "Albedo", age = it) }
+            Person.createAll(persons)
+            expect((0..300).toList()) { Person.findAll().map { it.age }.sorted() }
+            expect(301) { persons.mapNotNull { it.id }.toSet().size }
+            persons.forEach { expect(it.age) { Person.getById(it.id!!).age } }
+        }
+        @Test fun multipleBatches() {
+            val batchSize = JdbiOrm.getBatchSize()
+            JdbiOrm.setBatchSize(7)
+            try {
+                val persons = (0..30).map { Person(name = "Albedo", age = it) }
+                Person.createAll(persons)
+                expect(31) { Person.count() }
+                persons.forEach { expect(it.age) { Person.getById(it.id!!).age } }
+            } finally {
+                JdbiOrm.setBatchSize(batchSize)
+            }
+        }
+        @Test fun validates() {
+            assertThrows<ConstraintViolationException> {
+                Person.createAll(listOf(Person(name = "Albedo", age = 1), Person(name = "", age = 2)))
+            }
+            expect(0) { Person.count() }
+            Person.createAll(listOf(Person(name = "", age = 2)), false)
+            expect(1) { Person.count() }
+        }
+        @Test fun naturalIds() {
+            NaturalPerson.createAll(listOf(NaturalPerson("1234", "Albedo", byteArrayOf(1)), NaturalPerson("4321", "Rubedo", byteArrayOf(2))))
+            expect(listOf("1234", "4321")) { NaturalPerson.findAll().map { it.id!! }.sorted() }
+        }
+        @Test fun preservesOrder() {
+            val statements = mutableListOf<String>()
+            val config = JdbiOrm.jdbi().getConfig(SqlStatements::class.java)
+            val logger = config.sqlLogger
+            config.sqlLogger = object : SqlLogger {
+                override fun logAfterExecution(context: StatementContext) {
+                    val sql = context.renderedSql
+                    if (sql.startsWith("insert")) {
+                        statements.add(if (sql.startsWith("insert into Test (id, ")) "withId" else "withoutId")
+                    }
+                }
+            }
+            try {
+                Person.createAll(listOf(Person(name = "Albedo", age = 1), Person(id = 1000, name = "Rubedo", age = 2), Person(name = "Nigredo", age = 3)))
+            } finally {
+                config.sqlLogger = logger
+            }
+            expect(listOf("withoutId", "withId", "withoutId")) { statements }
+            expect(listOf("Albedo", "Nigredo", "Rubedo")) { Person.findAll().map { it.name }.sorted() }
+        }
+    }
+    @Nested inner class BulkLoadTests {
+        @Test fun empty() {
+            expect(0) { Person.bulkLoad(listOf<Person>().iterator()).rowCount }
+            expect(0) { Person.count() }
+        }
+        @Test fun generatedIds() {
+            val result = Person.bulkLoad((0 until 2500).asSequence().map { Person(name = "Albedo", age = it) }.iterator())
+            expect(2500) { result.rowCount }
+            expect(2500) { Person.count() }
+            expect((0 until 2500).toList()) { Person.findAll().map { it.age }.sorted() }
+        }
+        @Test fun smallBatches() {
+            val batchSize = JdbiOrm.getBatchSize()
+            JdbiOrm.setBatchSize(7)
+            try {
+                Person.bulkLoad((0..30).map { Person(name = "Albedo", age = it) }.iterator())
+                expect((0..30).toList()) { Person.findAll().map { it.age }.sorted() }
+            } finally {
+                JdbiOrm.setBatchSize(batchSize)
+            }
+        }
+        @Test fun naturalIds() {
+            NaturalPerson.bulkLoad(listOf(NaturalPerson("1234", "Albedo", byteArrayOf(1)), NaturalPerson("4321", "Rubedo", byteArrayOf(2))).iterator())
+            expect(listOf("1234", "4321")) { NaturalPerson.findAll().map { it.id!! }.sorted() }
+            expect(2) { NaturalPerson.getById("4321").bytes[0].toInt() }
+        }
+        @Test fun mixedIdsFail() {
+            assertThrows<IllegalArgumentException> {
+                NaturalPerson.bulkLoad(listOf(NaturalPerson("1234", "Albedo", byteArrayOf(1)), NaturalPerson(null, "Rubedo", byteArrayOf(2))).iterator())
+            }
+            expect(0) { NaturalPerson.count() }
+        }
+        @Test fun validates() {
+            assertThrows<ConstraintViolationException> {
+                Person.bulkLoad(listOf(Person(name = "Albedo", age = 1), Person(name = "", age = 2)).iterator())
+            }
+            expect(0) { Person.count() }
+            Person.bulkLoad(listOf(Person(name = "", age = 2)).iterator(), false)
+            expect(1) { Person.count() }
+        }
+    }
+    @Nested inner class SaveAllTests {
+        @Test fun empty() {
+            Person.saveAll(listOf())
+            expect(0) { Person.count() }
+        }
+        @Test fun updatesAllRows() {
+            val persons = (0..300).map { Person(name = "Albedo", age = it) }
+            Person.createAll(persons)
+            persons.forEach { it.name = "Rubedo${it.age}" }
+            Person.saveAll(persons)
+            expect((0..300).map { "Rubedo$it" }.toSet()) { Person.findAll().map { it.name }.toSet() }
+        }
+        @Test fun createsEntitiesWithNullId() {
+            val p = Person(name = "Albedo", age = 1)
+            p.save()
+            p.name = "Rubedo"
+            val p2 = Person(name = "Nigredo", age = 2)
+            Person.saveAll(listOf(p, p2))
+            expect(true) { p2.id != null }
+            expect(listOf("Nigredo", "Rubedo")) { Person.findAll().map { it.name }.sorted() }
+        }
+        @Test fun failsOnMissingRowsAndRollsBack() {
+            val p = Person(name = "Albedo", age = 1)
+            p.save()
+            p.name = "Rubedo"
+            expectThrows<IllegalStateException>("perhaps there are no rows with ids [${p.id!! + 1}]?") {
+                Person.saveAll(listOf(p, Person(id = p.id!! + 1, name = "Nigredo", age = 2)))
+            }
+            expectList("Albedo") { Person.findAll().map { it.name } }
+        }
+    }
     @Nested inner class FindSingleByTests {
         @Test fun `succeeds if there is exactly one matching entity`() {
             val p = Person(name = "Albedo", age = 130)
@@ -218,6 +784,23 @@ abstract class AbstractPersonTests {
             expect(false) { Person.existsById(p.id!! + 1) }
             expect(false) { Person.existsBy("age<=:age") { it.bind("age", 26) } }
         }
+        @Test fun `works without the EXISTS quirk`() {
+            val p = Person(name = "Albedo", age = 130)
+            p.save()
+            val detected = db { Quirks.from(this) }
+            JdbiOrm.quirks = object : Quirks by detected {
+                override fun exists(select: String): String? = null
+            }
+            try {
+                expect(true) { Person.existsAny() }
+                expect(true) { Person.existsById(p.id!!) }
+                expect(false) { Person.existsById(p.id!! + 1) }
+                expect(true) { Person.existsBy("age>=:age") { it.bind("age", 26) } }
+                expect(false) { Person.existsBy("age<=:age") { it.bind("age", 26) } }
+            } finally {
+                JdbiOrm.quirks = null
+            }
+        }
     }
 }
 
@@ -352,6 +935,53 @@ abstract class AbstractCompositePKTests {
         MappingTable.dao.deleteById(MappingTable.ID(1, 1))
         expect(listOf("Nigredo", "Rubedo")) { MappingTable.dao.findAll().map { it.someData } }
     }
+    @Test fun createAll() {
+        MappingTable.dao.createAll(listOf(MappingTable(1, 1, "Albedo"), MappingTable(2, 2, "Nigredo")))
+        expect(listOf("Albedo", "Nigredo")) { MappingTable.dao.findAll().map { it.someData }.sorted() }
+        assertThrows<UnsupportedOperationException> {
+            MappingTable.dao.createAll(listOf(MappingTable().apply { someData = "Rubedo" }), false)
+        }
+    }
+    @Test fun saveAll() {
+        val mappings = listOf(MappingTable(1, 1, "Albedo"), MappingTable(2, 2, "Nigredo"))
+        MappingTable.dao.createAll(mappings)
+        mappings.forEach { it.someData = it.someData + "2" }
+        MappingTable.dao.saveAll(mappings)
+        expect(listOf("Albedo2", "Nigredo2")) { MappingTable.dao.findAll().map { it.someData }.sorted() }
+    }
+    @Test fun upsert() {
+        MappingTable.dao.upsert(MappingTable(1, 1, "Albedo"))
+        MappingTable.dao.upsert(MappingTable(1, 1, "Nigredo"))
+        MappingTable.dao.upsertAll(listOf(MappingTable(1, 1, "Rubedo"), MappingTable(1, 2, "Citrinitas")))
+        expect(listOf("Citrinitas", "Rubedo")) { MappingTable.dao.findAll().map { it.someData }.sorted() }
+    }
+    @Test fun reloadAll() {
+        val entities = (1L..20L).map { MappingTable(it, it + 1, "Foo$it") }
+        MappingTable.dao.createAll(entities)
+        entities.forEach { it.someData = "" }
+        MappingTable.dao.deleteById(MappingTable.ID(3, 4))
+        expect(listOf(entities[2])) { MappingTable.dao.reloadAll(entities, false) }
+        expect((1L..20L).map { if (it == 3L) "" else "Foo$it" }) { entities.map { it.someData } }
+    }
+    @Test fun findByIds() {
+        val entities = (1L..20L).map { MappingTable(it, it + 1, "Foo$it") }
+        MappingTable.dao.createAll(entities)
+        val ids = listOf(MappingTable.ID(5, 6), MappingTable.ID(1, 1), MappingTable.ID(2, 3), MappingTable.ID(5, 6))
+        expect(mapOf(MappingTable.ID(5, 6) to "Foo5", MappingTable.ID(2, 3) to "Foo2")) { MappingTable.dao.findByIds(ids).mapValues { it.value.someData } }
+        expect(listOf(MappingTable.ID(5, 6), MappingTable.ID(2, 3))) { MappingTable.dao.findExistingIds(ids).toList() }
+        val batchSize = JdbiOrm.getBatchSize()
+        JdbiOrm.setBatchSize(3)
+        try {
+            expect(20) { MappingTable.dao.findByIds((1L..20L).map { MappingTable.ID(it, it + 1) }).size }
+        } finally {
+            JdbiOrm.setBatchSize(batchSize)
+        }
+    }
+    @Test fun deleteByIds() {
+        MappingTable.dao.createAll((1L..20L).map { MappingTable(it, it + 1, "Foo$it") })
+        expect(19) { MappingTable.dao.deleteByIds((2L..20L).map { MappingTable.ID(it, it + 1) } + MappingTable.ID(1, 1)) }
+        expect(listOf("Foo1")) { MappingTable.dao.findAll().map { it.someData } }
+    }
     @Test fun deleteByIdDoesNothingOnUnknownId() {
         MappingTable.dao.deleteById(MappingTable.ID(25, 25))
         expect(listOf()) { MappingTable.dao.findAll() }
@@ -385,3 +1015,8 @@ abstract class AbstractCompositePKTests {
         }
     }
 }
+
+data class PersonName(var name: String = "", var age: Int = 0)
+
+data class AgeStats(var maritalStatus: MaritalStatus? = null, var count: Long = 0, var sumAge: Long? = null,
+                    var avgAge: Double? = null, var minAge: Int? = null, var maxAge: Int? = null)
@@ -1,6 +1,7 @@
 package com.gitlab.mvysny.jdbiorm
 
 import com.gitlab.mvysny.jdbiorm.quirks.DatabaseVariant
+import org.jdbi.v3.core.mapper.reflect.ColumnName
 import com.zaxxer.hikari.HikariConfig
 import com.zaxxer.hikari.HikariDataSource
 import java.util.*
@@ -29,6 +30,17 @@ data class NaturalPerson(private var id: String? = null, var name: String = "",
     companion object : Dao<NaturalPerson, String>(NaturalPerson::class.java)
 }
 
+/**
+ * The [NaturalPerson] table, mapped with [DirtyTracking]: [save] only updates modified columns.
+ */
+@DirtyTracking
+@Table("NaturalPerson")
+data class TrackedNaturalPerson(private var id: String? = null, var name: String = "", var bytes: ByteArray = byteArrayOf()) : Entity<String> {
+    override fun getId(): String? = id
+    override fun setId(id: String?) { this.id = id }
+    companion object : Dao<TrackedNaturalPerson, String>(TrackedNaturalPerson::class.java)
+}
+
 /**
  * Demoes app-generated UUID ids. Note how [create] is overridden to auto-generate the ID, so that [save] works properly.
  *
@@ -43,6 +55,29 @@ data class LogRecord(private var id: UUID? = null, var text: String = "") : Uuid
     companion object : Dao<LogRecord, UUID>(LogRecord::class.java)
 }
 
+/**
+ * Tests optimistic locking.
+ */
+data class VersionedEntity(private var id: Long? = null, var name: String = "", @field:Version var version: Long? = null) : Entity<Long> {
+    override fun getId(): Long? = id
+    override fun setId(id: Long?) { this.id = id }
+    companion object : Dao<VersionedEntity, Long>(VersionedEntity::class.java)
+}
+
+/**
+ * Tests fetching of the values of [Generated] columns.
+ */
+data class GeneratedColumnsEntity(
+    private var id: Long? = null,
+    var name: String = "",
+    @field:Generated var counter: Int? = null,
+    @field:Generated @field:ColumnName("name_length") var nameLength: Int? = null
+) : Entity<Long> {
+    override fun getId(): Long? = id
+    override fun setId(id: Long?) { this.id = id }
+    companion object : Dao<GeneratedColumnsEntity, Long>(GeneratedColumnsEntity::class.java)
+}
+
 /**
  * Tests all sorts of type mapping:
  * @property enumTest tests Java Enum mapping to native database enum mapping: https://github.com/mvysny/vok-orm/issues/12
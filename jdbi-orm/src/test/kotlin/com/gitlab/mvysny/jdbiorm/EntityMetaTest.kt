@@ -1,5 +1,7 @@
 package com.gitlab.mvysny.jdbiorm
 
+import com.gitlab.mvysny.jdbiorm.quirks.H2Quirks
+import com.gitlab.mvysny.jdbiorm.quirks.MySqlQuirks
 import org.junit.jupiter.api.Test
 import kotlin.test.expect
 
@@ -7,4 +9,56 @@ class EntityMetaTest {
     @Test fun serialization() {
         expect(EntityMeta.of(JoinTable::class.java)) { EntityMeta.of(JoinTable::class.java).cloneBySerialization() }
     }
+
+    @Test fun statementPlans() {
+        val meta = EntityMeta.of(NaturalPerson::class.java)
+        expect("select id, name, bytes from NaturalPerson where id = ?") { meta.selectByIdPlan.sql }
+        expect("select 1 from NaturalPerson where id = ?") { meta.existsByIdPlan.sql }
+        expect("delete from NaturalPerson where id = ?") { meta.deleteByIdPlan.sql }
+        expect("insert into NaturalPerson (id, name, bytes) values (?, ?, ?)") { meta.getInsertPlan(true).sql }
+        expect("insert into NaturalPerson (name, bytes) values (?, ?)") { meta.getInsertPlan(false).sql }
+        expect("update NaturalPerson set name = ?, bytes = ? where id = ?") { meta.updatePlan.sql }
+        expect(listOf("name", "bytes", "id")) { meta.updatePlan.parameters.map { it.name.name } }
+        expect("NaturalPerson.id, NaturalPerson.name, NaturalPerson.bytes") { meta.selectFields }
+    }
+
+    @Test fun upsertPlanIsCached() {
+        val meta = EntityMeta.of(NaturalPerson::class.java)
+        val plan = meta.getUpsertPlan(H2Quirks())
+        expect("MERGE INTO NaturalPerson (id, name, bytes) KEY (id) VALUES (?, ?, ?)") { plan.sql }
+        expect(true) { plan === meta.getUpsertPlan(H2Quirks()) }
+        expect(true) { plan !== meta.getUpsertPlan(MySqlQuirks()) }
+    }
+
+    @Test fun statementPlansCompositeKey() {
+        val meta = EntityMeta.of(MappingTable::class.java)
+        expect("delete from mapping_table where person_id = ? AND department_id = ?") { meta.deleteByIdPlan.sql }
+        expect("update mapping_table set some_data = ? where person_id = ? AND department_id = ?") { meta.updatePlan.sql }
+    }
+
+    @Test fun statementPlansVersioned() {
+        val meta = EntityMeta.of(VersionedEntity::class.java)
+        expect("version") { meta.versionProperty!!.name.name }
+        expect("update VersionedEntity set name = ?, version = version + 1 where id = ? AND version = ?") { meta.updatePlan.sql }
+        expect(listOf("name", "id", "version")) { meta.updatePlan.parameters.map { it.name.name } }
+    }
+
+    @Test fun statementPlansGenerated() {
+        val meta = EntityMeta.of(GeneratedColumnsEntity::class.java)
+        expect(listOf("counter", "nameLength")) { meta.generatedProperties.map { it.name.name } }
+        expect("insert into GeneratedColumnsEntity (name) values (?)") { meta.getInsertPlan(false).sql }
+        expect("update GeneratedColumnsEntity set name = ? where id = ?") { meta.updatePlan.sql }
+    }
+
+    @Test fun propertyAccessors() {
+        val meta = EntityMeta.of(MappingTable::class.java)
+        val entity = meta.newEntityInstance()
+        expect(null) { entity.id }
+        // setting a component of a composite key instantiates the key
+        meta.idProperty[0].set(entity, 5L)
+        expect(5L) { entity.id!!.personId }
+        expect(null) { meta.idProperty[1].get(entity) }
+        meta.idProperty[1].set(entity, 6L)
+        expect(MappingTable.ID(5, 6)) { meta.clone(entity).id }
+    }
 }
@@ -41,6 +41,8 @@ class MariaDBDatabaseTest {
             ddl("""create table if not exists EntityWithAliasedId(myid bigint primary key auto_increment, name varchar(400) not null)""")
             ddl("""create table if not exists NaturalPerson(id varchar(10) primary key, name varchar(400) not null, bytes binary(16) not null)""")
             ddl("""create table if not exists LogRecord(id binary(16) primary key, text varchar(400) not null)""")
+            ddl("""create table if not exists VersionedEntity(id bigint primary key auto_increment, name varchar(400) not null, version bigint not null)""")
+            ddl("""create table if not exists GeneratedColumnsEntity(id bigint primary key auto_increment, name varchar(400) not null, counter int default 42 not null, name_length int as (char_length(name)) persistent)""")
             ddl("""create table TypeMappingEntity(id bigint primary key auto_increment, enumTest ENUM('Single', 'Married', 'Divorced', 'Widowed'))""")
             ddl("""create table JOIN_TABLE(customerId bigint, orderId bigint)""")
             ddl("""create table mapping_table(person_id bigint not null, department_id bigint not null, some_data varchar(400) not null, PRIMARY KEY(person_id, department_id))""")
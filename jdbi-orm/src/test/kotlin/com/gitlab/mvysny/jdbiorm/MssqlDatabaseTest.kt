@@ -54,6 +54,8 @@ class MssqlDatabaseTest {
             ddl("""create table EntityWithAliasedId(myid bigint primary key IDENTITY(1,1) not null, name varchar(400) not null)""")
             ddl("""create table NaturalPerson(id varchar(10) primary key, name varchar(400) not null, bytes binary(16) not null)""")
             ddl("""create table LogRecord(id uniqueidentifier primary key, text varchar(400) not null)""")
+            ddl("""create table VersionedEntity(id bigint primary key IDENTITY(1,1) not null, name varchar(400) not null, version bigint not null)""")
+            ddl("""create table GeneratedColumnsEntity(id bigint primary key IDENTITY(1,1) not null, name varchar(400) not null, counter int default 42 not null, name_length as len(name))""")
             ddl("""create table TypeMappingEntity(id bigint primary key IDENTITY(1,1) not null, enumTest varchar(10))""")
             ddl("""create table JOIN_TABLE(customerId bigint, orderId bigint)""")
             ddl("""create table mapping_table(person_id bigint not null, department_id bigint not null, some_data varchar(400) not null, PRIMARY KEY(person_id, department_id))""")
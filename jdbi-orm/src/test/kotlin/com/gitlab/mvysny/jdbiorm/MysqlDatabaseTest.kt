@@ -43,6 +43,8 @@ class MysqlDatabaseTest {
             ddl("""create table EntityWithAliasedId(myid bigint primary key auto_increment, name varchar(400) not null)""")
             ddl("""create table NaturalPerson(id varchar(10) primary key, name varchar(400) not null, bytes binary(16) not null)""")
             ddl("""create table LogRecord(id binary(16) primary key, text varchar(400) not null)""")
+            ddl("""create table VersionedEntity(id bigint primary key auto_increment, name varchar(400) not null, version bigint not null)""")
+            ddl("""create table GeneratedColumnsEntity(id bigint primary key auto_increment, name varchar(400) not null, counter int default 42 not null, name_length int generated always as (char_length(name)) stored)""")
             ddl("""create table TypeMappingEntity(id bigint primary key auto_increment, enumTest ENUM('Single', 'Married', 'Divorced', 'Widowed'))""")
             ddl("""create table JOIN_TABLE(customerId bigint, orderId bigint)""")
             ddl("""create table mapping_table(person_id bigint not null, department_id bigint not null, some_data varchar(400) not null, PRIMARY KEY(person_id, department_id))""")
@@ -29,6 +29,8 @@ fun clearDb() {
     EntityWithAliasedId.dao.deleteAll()
     NaturalPerson.deleteAll()
     LogRecord.deleteAll()
+    VersionedEntity.deleteAll()
+    GeneratedColumnsEntity.deleteAll()
     TypeMappingEntity.deleteAll()
     JoinTable.dao.deleteAll()
     MappingTable.dao.deleteAll()
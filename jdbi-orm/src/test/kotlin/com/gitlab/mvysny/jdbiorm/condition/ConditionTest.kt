@@ -4,6 +4,7 @@ import com.gitlab.mvysny.jdbiorm.DaoOfAny
 import com.gitlab.mvysny.jdbiorm.Person
 import org.junit.jupiter.api.Nested
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
 import kotlin.test.expect
 
 /**
@@ -220,6 +221,14 @@ class ConditionTest {
             expect("true") { Expression.Value(true).castAsVarchar().calculate("ignored") }
         }
     }
+    @Test fun aggregateFunctions() {
+        expect("COUNT(*)") { AggregateFunction.countAll().toString() }
+        expect("'COUNT(*)'{}") { AggregateFunction.countAll().toSql().toString() }
+        expect("'SUM(Test.age)'{}") { Person.AGE.sum().toSql().toString() }
+        expect("MAX(Person.age)") { Person.AGE.max().toString() }
+        expect(AggregateFunction.countAll()) { AggregateFunction.countAll() }
+        assertThrows<IllegalStateException> { Person.AGE.avg().calculate("ignored") }
+    }
     @Test fun nativeSQL() {
         expect("'name = :name'{name=foo}") { NativeSQL("name = :name", mapOf("name" to "foo")).toString() }
         expect("'name = :name'{name=foo}") { NativeSQL("name = :name", mapOf("name" to "foo")).toSql().toString() }
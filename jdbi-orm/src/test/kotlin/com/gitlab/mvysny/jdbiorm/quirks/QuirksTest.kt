@@ -0,0 +1,56 @@
+package com.gitlab.mvysny.jdbiorm.quirks
+
+import org.junit.jupiter.api.Nested
+import org.junit.jupiter.api.Test
+import kotlin.test.expect
+
+class QuirksTest {
+    @Nested inner class UpsertTests {
+        private val columns = listOf("id", "name", "age")
+        private val id = listOf("id")
+
+        @Test fun postgresql() {
+            expect("INSERT INTO Test (id, name, age) VALUES (?, ?, ?) ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, age = EXCLUDED.age") {
+                Quirks.NO_QUIRKS.upsert("Test", columns, id)
+            }
+            expect("INSERT INTO Test (id) VALUES (?) ON CONFLICT (id) DO NOTHING") {
+                Quirks.NO_QUIRKS.upsert("Test", id, id)
+            }
+        }
+        @Test fun mysql() {
+            expect("INSERT INTO Test (id, name, age) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name), age = VALUES(age)") {
+                MySqlQuirks().upsert("Test", columns, id)
+            }
+            expect("INSERT INTO Test (id) VALUES (?) ON DUPLICATE KEY UPDATE id = VALUES(id)") {
+                MySqlQuirks().upsert("Test", id, id)
+            }
+        }
+        @Test fun h2() {
+            expect("MERGE INTO Test (id, name, age) KEY (id) VALUES (?, ?, ?)") {
+                H2Quirks().upsert("Test", columns, id)
+            }
+        }
+        @Test fun mssql() {
+            expect("MERGE INTO Test WITH (HOLDLOCK) AS target USING (VALUES (?, ?, ?)) AS source (id, name, age) ON target.id = source.id " +
+                    "WHEN MATCHED THEN UPDATE SET name = source.name, age = source.age " +
+                    "WHEN NOT MATCHED THEN INSERT (id, name, age) VALUES (source.id, source.name, source.age);") {
+                MssqlQuirks().upsert("Test", columns, id)
+            }
+            expect("MERGE INTO Test WITH (HOLDLOCK) AS target USING (VALUES (?, ?)) AS source (a, b) ON target.a = source.a AND target.b = source.b " +
+                    "WHEN NOT MATCHED THEN INSERT (a, b) VALUES (source.a, source.b);") {
+                MssqlQuirks().upsert("Test", listOf("a", "b"), listOf("a", "b"))
+            }
+        }
+    }
+    @Test fun exists() {
+        expect(null) { Quirks.NO_QUIRKS.exists("select 1 from Test") }
+        expect("SELECT EXISTS(select 1 from Test)") { H2Quirks().exists("select 1 from Test") }
+        expect("SELECT EXISTS(select 1 from Test)") { MySqlQuirks().exists("select 1 from Test") }
+        expect("SELECT EXISTS(select 1 from Test)") { PostgreSqlQuirks().exists("select 1 from Test") }
+        expect("SELECT CASE WHEN EXISTS(select 1 from Test) THEN 1 ELSE 0 END") { MssqlQuirks().exists("select 1 from Test") }
+    }
+    @Test fun rowCountEstimate() {
+        expect(null) { Quirks.NO_QUIRKS.rowCountEstimate("Test") }
+        expect("SELECT reltuples FROM pg_class WHERE oid = to_regclass(:table)") { PostgreSqlQuirks().rowCountEstimate("Test") }
+    }
+}